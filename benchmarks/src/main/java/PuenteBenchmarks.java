@@ -0,0 +1,200 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Puente entre los benchmarks y las clases del compresor. Las clases del compresor están en el paquete por defecto y
+ * JMH no acepta benchmarks en ese paquete, y desde otro paquete no se pueden usar las clases del paquete por defecto,
+ * así que los benchmarks llaman a estos métodos estáticos por medio de method handles (ver huffman.benchmarks.Puente).
+ * Cada método corre una sola etapa y devuelve algo que depende de todo el trabajo hecho, para que el JIT no lo elimine.
+ */
+public final class PuenteBenchmarks {
+
+    /**
+     * Constructor privado; la clase solo tiene métodos estáticos.
+     */
+    private PuenteBenchmarks() {
+    }
+
+    /**
+     * Cuenta las frecuencias de los bytes.
+     * @param datos los bytes.
+     * @return el histograma.
+     */
+    public static Object histograma(byte[] datos) {
+        Histograma histograma = new Histograma();
+        histograma.agregar(datos, 0, datos.length);
+        return histograma;
+    }
+
+    /**
+     * Arma el árbol de Huffman y calcula las longitudes de los códigos, limitándolas si hace falta.
+     * @param histograma un histograma devuelto por histograma(byte[]).
+     * @param longitudMaxima la longitud máxima de los códigos.
+     * @return la longitud del código de cada byte.
+     */
+    public static int[] longitudes(Object histograma, int longitudMaxima) {
+        return ConstructorCodigos.longitudes((Histograma) histograma, longitudMaxima);
+    }
+
+    /**
+     * Arma el codificador (los códigos canónicos invertidos) a partir de las longitudes.
+     * @param longitudes la longitud del código de cada byte.
+     * @return el codificador.
+     */
+    public static Object codificador(int[] longitudes) {
+        return new Codificador(new CodigoCanonico(longitudes));
+    }
+
+    /**
+     * Arma las tablas de decodificación a partir de las longitudes. Si hay un solo byte distinto se usa el código
+     * vacío, como en el encabezado.
+     * @param histograma el histograma con que se calcularon las longitudes.
+     * @param longitudes la longitud del código de cada byte.
+     * @return las tablas de decodificación.
+     */
+    public static Object tablaDecodificacion(Object histograma, int[] longitudes) {
+        Histograma frecuencias = (Histograma) histograma;
+        Encabezado encabezado = new Encabezado();
+        encabezado.longitudes = longitudes;
+        if (frecuencias.simbolosDistintos() == 1) {
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                if (frecuencias.frecuencia(x) > 0) {
+                    encabezado.simboloUnico = x;
+                }
+            }
+        }
+        return encabezado.decodificador();
+    }
+
+    /**
+     * Codifica los bytes con un codificador, descartando el resultado.
+     * @param codificador un codificador devuelto por codificador(int[]).
+     * @param datos los bytes originales.
+     * @return la cantidad de bytes comprimidos.
+     */
+    public static long codificar(Object codificador, byte[] datos) {
+        Descarte descarte = new Descarte();
+        BitOutputStream salida = new BitOutputStream(descarte);
+        ((Codificador) codificador).codificar(datos, 0, datos.length, salida);
+        salida.close();
+        return descarte.cantidad;
+    }
+
+    /**
+     * Codifica los bytes y devuelve el resultado, para preparar los benchmarks de decodificación.
+     * @param codificador un codificador devuelto por codificador(int[]).
+     * @param datos los bytes originales.
+     * @return los bytes comprimidos, sin encabezado.
+     */
+    public static byte[] codificados(Object codificador, byte[] datos) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(datos.length);
+        BitOutputStream salida = new BitOutputStream(bytes);
+        ((Codificador) codificador).codificar(datos, 0, datos.length, salida);
+        salida.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica con las tablas de decodificación.
+     * @param tabla las tablas devueltas por tablaDecodificacion(Object, int[]).
+     * @param comprimido los bytes devueltos por codificados(Object, byte[]).
+     * @param destino donde se guardan los bytes decodificados; se llena completo.
+     * @return el primer byte decodificado.
+     * @throws IOException si los datos no corresponden a la tabla.
+     */
+    public static int decodificar(Object tabla, byte[] comprimido, byte[] destino) throws IOException {
+        BitInputStream entrada = new BitInputStream(new ByteArrayInputStream(comprimido));
+        ((TablaDecodificacion) tabla).decodificar(entrada, destino, 0, destino.length);
+        return destino[0];
+    }
+
+    /**
+     * Escribe cada byte con BitOutputStream.writeBits, usando solo sus bits más bajos, y descarta el resultado.
+     * @param datos los valores a escribir.
+     * @param bits cuántos bits de cada valor se escriben, de 1 a 8.
+     * @return la cantidad de bytes escritos.
+     */
+    public static long escribirBits(byte[] datos, int bits) {
+        Descarte descarte = new Descarte();
+        BitOutputStream salida = new BitOutputStream(descarte);
+        for (byte dato : datos) {
+            salida.writeBits(dato, bits);
+        }
+        salida.close();
+        return descarte.cantidad;
+    }
+
+    /**
+     * Lee los bytes de a 'bits' bits con BitInputStream.peekBits y consumeBits.
+     * @param datos los bytes a leer.
+     * @param bits cuántos bits se leen cada vez, de 1 a 57.
+     * @return la suma de los valores leídos.
+     */
+    public static long leerBits(byte[] datos, int bits) {
+        BitInputStream entrada = new BitInputStream(new ByteArrayInputStream(datos));
+        long suma = 0;
+        for (long faltan = (long) datos.length * 8 / bits; faltan > 0; faltan--) {
+            suma += entrada.peekBits(bits);
+            entrada.consumeBits(bits);
+        }
+        return suma;
+    }
+
+    /**
+     * Comprime de principio a fin con CompresorHuffman.
+     * @param datos los bytes originales.
+     * @param modo "simple", "adaptativo", "contexto", "flujo" o "intercalado" (el formato de flujo con sub-flujos).
+     * @return el archivo comprimido completo.
+     * @throws IOException si falla la compresión.
+     */
+    public static byte[] comprimir(byte[] datos, String modo) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length + 1024);
+        int longitudMaxima = LongitudLimitada.LONGITUD_MAXIMA;
+        switch (modo) {
+            case "adaptativo":
+                new CompresorHuffman(longitudMaxima, 0, true).comprimir(ByteBuffer.wrap(datos), "bin", salida);
+                break;
+            case "contexto":
+                new CompresorHuffman(longitudMaxima, 0, false, true, false, null).comprimir(ByteBuffer.wrap(datos), "bin", salida);
+                break;
+            case "flujo":
+                new CompresorHuffman().comprimir(new ByteArrayInputStream(datos), "bin", salida);
+                break;
+            case "intercalado":
+                new CompresorHuffman(longitudMaxima, 0, false, false, true, null).comprimir(new ByteArrayInputStream(datos), "bin", salida);
+                break;
+            default:
+                new CompresorHuffman().comprimir(ByteBuffer.wrap(datos), "bin", salida);
+                break;
+        }
+        return salida.toByteArray();
+    }
+
+    /**
+     * Descomprime de principio a fin con DescompresorHuffman, descartando el resultado.
+     * @param comprimido un archivo devuelto por comprimir(byte[], String).
+     * @return la cantidad de bytes originales.
+     * @throws IOException si los datos no son válidos.
+     */
+    public static long descomprimir(byte[] comprimido) throws IOException {
+        return new DescompresorHuffman().descomprimir(ByteBuffer.wrap(comprimido), new Descarte());
+    }
+
+    // Salida que solo cuenta los bytes, para no medir el crecimiento de un arreglo.
+    private static final class Descarte extends OutputStream {
+        private long cantidad;
+
+        @Override
+        public void write(int b) {
+            cantidad++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int inicio, int longitud) {
+            cantidad += longitud;
+        }
+    }
+}
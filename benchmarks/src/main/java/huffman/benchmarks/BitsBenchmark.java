@@ -0,0 +1,49 @@
+package huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Escritura y lectura de bits sueltos, sin códigos. Cada operación es un byte del arreglo: en la escritura se escribe
+ * un valor de 'bits' bits por byte, y en la lectura se recorre el arreglo completo de a 'bits' bits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitsBenchmark {
+    @Param({"1", "5", "8"})
+    int bits;
+
+    private byte[] datos;
+
+    @Setup
+    public void preparar() {
+        datos = Corpus.UNIFORME.generar();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public long escribir() {
+        return Puente.escribirBits(datos, bits);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public long leer() {
+        return Puente.leerBits(datos, bits);
+    }
+}
@@ -0,0 +1,57 @@
+package huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compresión y descompresión de principio a fin, con encabezado, en memoria. Cada operación es un byte original, así
+ * que ops/us se lee como MB/s. Con -prof gc se ve además cuánta memoria se asigna por byte.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"UNIFORME", "SESGADO", "TEXTO", "CEROS", "BINARIO"})
+    Corpus corpus;
+
+    @Param({"simple", "flujo", "intercalado", "adaptativo", "contexto"})
+    String modo;
+
+    private byte[] datos;
+    private byte[] comprimido;
+
+    @Setup
+    public void preparar() {
+        datos = corpus.generar();
+        comprimido = Puente.comprimir(datos, modo);
+        if (Puente.descomprimir(comprimido) != datos.length) {
+            throw new IllegalStateException("La descompresión no devolvió el tamaño original");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public byte[] comprimir() {
+        return Puente.comprimir(datos, modo);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public long descomprimir() {
+        return Puente.descomprimir(comprimido);
+    }
+}
@@ -0,0 +1,59 @@
+package huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Codificación y decodificación de los bytes con tablas ya armadas, sin encabezado ni lectura de archivos. Cada
+ * operación es un byte original, así que ops/us se lee como MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodificacionBenchmark {
+    @Param({"UNIFORME", "SESGADO", "TEXTO", "CEROS", "BINARIO"})
+    Corpus corpus;
+
+    private byte[] datos;
+    private Object codificador;
+    private Object tabla;
+    private byte[] comprimido;
+    private byte[] destino;
+
+    @Setup
+    public void preparar() {
+        datos = corpus.generar();
+        Object histograma = Puente.histograma(datos);
+        int[] longitudes = Puente.longitudes(histograma, 32);
+        codificador = Puente.codificador(longitudes);
+        tabla = Puente.tablaDecodificacion(histograma, longitudes);
+        comprimido = Puente.codificados(codificador, datos);
+        destino = new byte[datos.length];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public long codificar() {
+        return Puente.codificar(codificador, datos);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public int decodificar() {
+        return Puente.decodificar(tabla, comprimido, destino);
+    }
+}
@@ -0,0 +1,60 @@
+package huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Construcción del árbol y de las tablas a partir del histograma de cada corpus. Este costo no depende del tamaño de
+ * los datos sino de cuántos símbolos distintos hay, así que se mide en microsegundos por construcción; importa sobre
+ * todo con bloques chicos, donde se arma una tabla por bloque.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstruccionBenchmark {
+    @Param({"UNIFORME", "SESGADO", "TEXTO", "CEROS", "BINARIO"})
+    Corpus corpus;
+
+    private Object histograma;
+    private int[] longitudes;
+
+    @Setup
+    public void preparar() {
+        histograma = Puente.histograma(corpus.generar());
+        longitudes = Puente.longitudes(histograma, 32);
+    }
+
+    @Benchmark
+    public int[] arbol() {
+        return Puente.longitudes(histograma, 32);
+    }
+
+    /** Con un límite bajo, para medir también el ajuste de las longitudes. */
+    @Benchmark
+    public int[] arbolLimitado() {
+        return Puente.longitudes(histograma, 9);
+    }
+
+    @Benchmark
+    public Object codificador() {
+        return Puente.codificador(longitudes);
+    }
+
+    @Benchmark
+    public Object tablaDecodificacion() {
+        return Puente.tablaDecodificacion(histograma, longitudes);
+    }
+}
@@ -0,0 +1,118 @@
+package huffman.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Los corpus con que se miden los benchmarks. Se generan con una semilla fija, así que todas las corridas miden
+ * exactamente los mismos bytes.
+ */
+enum Corpus {
+    /** Bytes al azar con distribución uniforme; no se pueden comprimir. */
+    UNIFORME,
+    /** Bytes al azar con distribución geométrica: pocos símbolos muy frecuentes y una cola larga. */
+    SESGADO,
+    /** Texto en inglés armado con palabras comunes, elegidas con frecuencias de Zipf. */
+    TEXTO,
+    /** Solo ceros: un único símbolo, con el código vacío. */
+    CEROS,
+    /** Registros binarios de largo fijo: un contador, un tipo, un valor que varía poco y relleno. */
+    BINARIO;
+
+    /** El tamaño de cada corpus, 1 MiB. */
+    static final int TAMANO = 1 << 20;
+
+    private static final long SEMILLA = 0x48756666L;
+    private static final String[] PALABRAS = {
+        "the", "of", "and", "to", "a", "in", "is", "that", "it", "was", "for", "on", "are", "as", "with", "his",
+        "they", "at", "be", "this", "from", "have", "or", "by", "one", "had", "not", "but", "what", "all", "were",
+        "when", "we", "there", "can", "an", "your", "which", "their", "said", "if", "do", "will", "each", "about",
+        "how", "up", "out", "them", "then", "she", "many", "some", "so", "these", "would", "other", "into", "has",
+        "more", "her", "two", "like", "him", "see", "time", "could", "no", "make", "than", "first", "been", "its",
+        "who", "now", "people", "my", "made", "over", "did", "down", "only", "way", "find", "use", "may", "water",
+        "long", "little", "very", "after", "words", "called", "just", "where", "most", "know", "compression",
+        "huffman", "frequency", "symbol", "table", "stream"
+    };
+
+    /**
+     * Genera los bytes del corpus.
+     * @return un arreglo nuevo de TAMANO bytes.
+     */
+    byte[] generar() {
+        Random azar = new Random(SEMILLA + ordinal());
+        byte[] datos = new byte[TAMANO];
+        switch (this) {
+            case UNIFORME:
+                azar.nextBytes(datos);
+                break;
+            case SESGADO:
+                for (int x = 0; x < datos.length; x++) {
+                    datos[x] = (byte) Math.min(255, (int) (-Math.log(1 - azar.nextDouble()) * 6));
+                }
+                break;
+            case TEXTO:
+                texto(azar, datos);
+                break;
+            case CEROS:
+                break;
+            default:
+                binario(azar, datos);
+                break;
+        }
+        return datos;
+    }
+
+    // Llena con oraciones de palabras elegidas con probabilidad proporcional a 1 / rango.
+    private static void texto(Random azar, byte[] datos) {
+        double[] acumulada = new double[PALABRAS.length];
+        double suma = 0;
+        for (int x = 0; x < PALABRAS.length; x++) {
+            suma += 1.0 / (x + 1);
+            acumulada[x] = suma;
+        }
+        int posicion = 0;
+        int enOracion = 0;
+        while (posicion < datos.length) {
+            double valor = azar.nextDouble() * suma;
+            int elegida = 0;
+            while (acumulada[elegida] < valor) {
+                elegida++;
+            }
+            String palabra = PALABRAS[elegida];
+            for (int x = 0; x < palabra.length() && posicion < datos.length; x++) {
+                char c = palabra.charAt(x);
+                datos[posicion++] = (byte) (enOracion == 0 && x == 0 ? Character.toUpperCase(c) : c);
+            }
+            enOracion++;
+            if (posicion < datos.length) {
+                if (enOracion > 6 && azar.nextInt(8) == 0) {
+                    datos[posicion++] = '.';
+                    enOracion = 0;
+                    if (posicion < datos.length) {
+                        datos[posicion++] = (byte) (azar.nextInt(5) == 0 ? '\n' : ' ');
+                    }
+                } else {
+                    datos[posicion++] = (byte) (azar.nextInt(12) == 0 ? ',' : ' ');
+                }
+            }
+        }
+    }
+
+    // Llena con registros de 16 bytes en little endian: contador (4), tipo (2), valor (8) y relleno (2).
+    private static void binario(Random azar, byte[] datos) {
+        double actual = 1000.0;
+        for (int registro = 0; registro * 16 < datos.length; registro++) {
+            int base = registro * 16;
+            actual += azar.nextGaussian();
+            long valor = Double.doubleToLongBits(actual);
+            int tipo = azar.nextInt(4) == 0 ? azar.nextInt(16) : 1;
+            for (int x = 0; x < 4; x++) {
+                datos[base + x] = (byte) (registro >>> (8 * x));
+            }
+            datos[base + 4] = (byte) tipo;
+            datos[base + 5] = 0;
+            for (int x = 0; x < 8; x++) {
+                datos[base + 6 + x] = (byte) (valor >>> (8 * x));
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conteo de frecuencias. Cada operación es un byte contado, así que ops/us se lee como MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistogramaBenchmark {
+    @Param({"UNIFORME", "SESGADO", "TEXTO", "CEROS", "BINARIO"})
+    Corpus corpus;
+
+    private byte[] datos;
+
+    @Setup
+    public void preparar() {
+        datos = corpus.generar();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(Corpus.TAMANO)
+    public Object histograma() {
+        return Puente.histograma(datos);
+    }
+}
@@ -0,0 +1,153 @@
+package huffman.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Llamadas a PuenteBenchmarks, que está en el paquete por defecto junto con el compresor. Los method handles se buscan
+ * una sola vez y se guardan en constantes, así que el JIT los trata como llamadas directas y no agregan costo a las
+ * mediciones.
+ */
+final class Puente {
+    private static final Class<?> CLASE = clase();
+    private static final MethodHandle HISTOGRAMA = buscar("histograma", Object.class, byte[].class);
+    private static final MethodHandle LONGITUDES = buscar("longitudes", int[].class, Object.class, int.class);
+    private static final MethodHandle CODIFICADOR = buscar("codificador", Object.class, int[].class);
+    private static final MethodHandle TABLA = buscar("tablaDecodificacion", Object.class, Object.class, int[].class);
+    private static final MethodHandle CODIFICAR = buscar("codificar", long.class, Object.class, byte[].class);
+    private static final MethodHandle CODIFICADOS = buscar("codificados", byte[].class, Object.class, byte[].class);
+    private static final MethodHandle DECODIFICAR = buscar("decodificar", int.class, Object.class, byte[].class, byte[].class);
+    private static final MethodHandle ESCRIBIR_BITS = buscar("escribirBits", long.class, byte[].class, int.class);
+    private static final MethodHandle LEER_BITS = buscar("leerBits", long.class, byte[].class, int.class);
+    private static final MethodHandle COMPRIMIR = buscar("comprimir", byte[].class, byte[].class, String.class);
+    private static final MethodHandle DESCOMPRIMIR = buscar("descomprimir", long.class, byte[].class);
+
+    /**
+     * Constructor privado; la clase solo tiene métodos estáticos.
+     */
+    private Puente() {
+    }
+
+    static Object histograma(byte[] datos) {
+        try {
+            return (Object) HISTOGRAMA.invokeExact(datos);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static int[] longitudes(Object histograma, int longitudMaxima) {
+        try {
+            return (int[]) LONGITUDES.invokeExact(histograma, longitudMaxima);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static Object codificador(int[] longitudes) {
+        try {
+            return (Object) CODIFICADOR.invokeExact(longitudes);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static Object tablaDecodificacion(Object histograma, int[] longitudes) {
+        try {
+            return (Object) TABLA.invokeExact(histograma, longitudes);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static long codificar(Object codificador, byte[] datos) {
+        try {
+            return (long) CODIFICAR.invokeExact(codificador, datos);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static byte[] codificados(Object codificador, byte[] datos) {
+        try {
+            return (byte[]) CODIFICADOS.invokeExact(codificador, datos);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static int decodificar(Object tabla, byte[] comprimido, byte[] destino) {
+        try {
+            return (int) DECODIFICAR.invokeExact(tabla, comprimido, destino);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static long escribirBits(byte[] datos, int bits) {
+        try {
+            return (long) ESCRIBIR_BITS.invokeExact(datos, bits);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static long leerBits(byte[] datos, int bits) {
+        try {
+            return (long) LEER_BITS.invokeExact(datos, bits);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static byte[] comprimir(byte[] datos, String modo) {
+        try {
+            return (byte[]) COMPRIMIR.invokeExact(datos, modo);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    static long descomprimir(byte[] comprimido) {
+        try {
+            return (long) DESCOMPRIMIR.invokeExact(comprimido);
+        } catch (Throwable error) {
+            throw propagar(error);
+        }
+    }
+
+    // Carga la clase del paquete por defecto por su nombre.
+    private static Class<?> clase() {
+        try {
+            return Class.forName("PuenteBenchmarks");
+        } catch (ClassNotFoundException exception) {
+            throw new IllegalStateException("No se encontró PuenteBenchmarks en el classpath", exception);
+        }
+    }
+
+    // Busca un método estático público de PuenteBenchmarks.
+    private static MethodHandle buscar(String nombre, Class<?> retorno, Class<?>... parametros) {
+        try {
+            return MethodHandles.publicLookup().findStatic(CLASE, nombre, MethodType.methodType(retorno, parametros));
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("No se encontró PuenteBenchmarks." + nombre, exception);
+        }
+    }
+
+    // Deja pasar los errores sin verificar y envuelve los demás.
+    private static RuntimeException propagar(Throwable error) {
+        if (error instanceof RuntimeException) {
+            return (RuntimeException) error;
+        }
+        if (error instanceof Error) {
+            throw (Error) error;
+        }
+        if (error instanceof IOException) {
+            return new UncheckedIOException((IOException) error);
+        }
+        return new IllegalStateException(error);
+    }
+}
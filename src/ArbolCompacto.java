@@ -0,0 +1,115 @@
+/**
+ * Árbol de Huffman guardado en arreglos paralelos: el peso, los dos hijos y el símbolo de cada nodo están en la misma
+ * posición de cuatro arreglos primitivos, sin un objeto por nodo. Las hojas son los nodos 0 a hojas - 1, en orden de
+ * símbolo, y cada nodo interno se agrega al final cuando se crea, así que la raíz es el último nodo y los hijos de un
+ * nodo siempre están antes que él. Un árbol de 256 símbolos ocupa unos pocos kilobytes contiguos.
+ */
+class ArbolCompacto {
+    private static final int MAXIMO_NODOS = 2 * CodigoCanonico.SIMBOLOS - 1;
+
+    private final long[] pesos;
+    private final short[] izquierdos; // -1 en las hojas
+    private final short[] derechos; // -1 en las hojas
+    private final short[] simbolos; // -1 en los nodos internos
+    private int nodos;
+
+    // Montículo de mínimos con los nodos que todavía no tienen padre. Se ordena por peso y, si hay empate, por número
+    // de nodo, que es el orden en que se agregaron: así el árbol es siempre el mismo para las mismas frecuencias.
+    private final short[] monticulo;
+    private int enMonticulo;
+
+    /**
+     * Construye el árbol de Huffman para las frecuencias de un histograma: se unen una y otra vez los dos nodos de
+     * menor peso hasta que queda uno solo.
+     * @param histograma las frecuencias; si no tiene ningún caracter el árbol queda vacío.
+     */
+    ArbolCompacto(Histograma histograma) {
+        pesos = new long[MAXIMO_NODOS];
+        izquierdos = new short[MAXIMO_NODOS];
+        derechos = new short[MAXIMO_NODOS];
+        simbolos = new short[MAXIMO_NODOS];
+        monticulo = new short[CodigoCanonico.SIMBOLOS];
+        nodos = 0;
+        enMonticulo = 0;
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            if (histograma.frecuencia(x) != 0) {
+                agregar(nuevoNodo(histograma.frecuencia(x), -1, -1, x));
+            }
+        }
+        while (enMonticulo > 1) {
+            int izquierdo = sacarMinimo();
+            int derecho = sacarMinimo();
+            agregar(nuevoNodo(pesos[izquierdo] + pesos[derecho], izquierdo, derecho, -1));
+        }
+    }
+
+    /**
+     * Calcula la longitud del código de cada símbolo, que es la profundidad de su hoja. Como los hijos están antes que
+     * el padre, basta recorrer los nodos desde la raíz hacia atrás, sin recursión.
+     * @return la longitud del código de cada uno de los 256 caracteres (0 si no aparece, o si es el único).
+     */
+    int[] longitudes() {
+        int[] longitudes = new int[CodigoCanonico.SIMBOLOS];
+        int[] profundidades = new int[nodos];
+        for (int x = nodos - 1; x >= 0; x--) {
+            if (simbolos[x] >= 0) {
+                longitudes[simbolos[x]] = profundidades[x];
+            } else {
+                profundidades[izquierdos[x]] = profundidades[x] + 1;
+                profundidades[derechos[x]] = profundidades[x] + 1;
+            }
+        }
+        return longitudes;
+    }
+
+    // Agrega un nodo al final de los arreglos y devuelve su número.
+    private int nuevoNodo(long peso, int izquierdo, int derecho, int simbolo) {
+        pesos[nodos] = peso;
+        izquierdos[nodos] = (short) izquierdo;
+        derechos[nodos] = (short) derecho;
+        simbolos[nodos] = (short) simbolo;
+        return nodos++;
+    }
+
+    // Indica si el nodo a sale del montículo antes que el nodo b.
+    private boolean antes(int a, int b) {
+        return pesos[a] < pesos[b] || (pesos[a] == pesos[b] && a < b);
+    }
+
+    // Agrega un nodo al montículo.
+    private void agregar(int nodo) {
+        int x = enMonticulo++;
+        while (x > 0) {
+            int padre = (x - 1) / 2;
+            if (!antes(nodo, monticulo[padre])) {
+                break;
+            }
+            monticulo[x] = monticulo[padre];
+            x = padre;
+        }
+        monticulo[x] = (short) nodo;
+    }
+
+    // Saca el nodo de menor peso del montículo.
+    private int sacarMinimo() {
+        int minimo = monticulo[0];
+        int ultimo = monticulo[--enMonticulo];
+        int x = 0;
+        while (true) {
+            int hijo = 2 * x + 1;
+            if (hijo >= enMonticulo) {
+                break;
+            }
+            if (hijo + 1 < enMonticulo && antes(monticulo[hijo + 1], monticulo[hijo])) {
+                hijo++;
+            }
+            if (!antes(monticulo[hijo], ultimo)) {
+                break;
+            }
+            monticulo[x] = monticulo[hijo];
+            x = hijo;
+        }
+        monticulo[x] = (short) ultimo;
+        return minimo;
+    }
+}
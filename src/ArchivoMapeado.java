@@ -0,0 +1,154 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Da acceso a un archivo mapeándolo en memoria con FileChannel.map, de modo que se lee directamente desde el caché de
+ * páginas del sistema operativo, sin una llamada al sistema por cada lectura. Como un solo mapeo no puede pasar de
+ * 2 GB, el archivo se recorre por ventanas de TAMANO_VENTANA bytes.
+ */
+class ArchivoMapeado implements Closeable {
+    static final long TAMANO_VENTANA = 1L << 30;
+
+    private final RandomAccessFile archivo;
+    private final FileChannel canal;
+    private final long tamano;
+
+    /**
+     * Abre el archivo para leerlo.
+     * @param file el archivo que queremos leer.
+     * @throws IOException si el archivo no existe o no se puede abrir.
+     */
+    ArchivoMapeado(File file) throws IOException {
+        archivo = new RandomAccessFile(file, "r");
+        canal = archivo.getChannel();
+        tamano = canal.size();
+    }
+
+    /**
+     * Devuelve el tamaño del archivo.
+     * @return el tamaño en bytes.
+     */
+    long tamano() {
+        return tamano;
+    }
+
+    /**
+     * Devuelve la cantidad de ventanas en que se divide el archivo.
+     * @return la cantidad de ventanas; 0 si el archivo está vacío.
+     */
+    int cantidadVentanas() {
+        return (int) ((tamano + TAMANO_VENTANA - 1) / TAMANO_VENTANA);
+    }
+
+    /**
+     * Mapea una de las ventanas del archivo.
+     * @param indice el número de ventana, desde 0.
+     * @return un buffer de solo lectura con los bytes de la ventana.
+     * @throws IOException si no se puede mapear el archivo.
+     */
+    ByteBuffer ventana(int indice) throws IOException {
+        long inicio = indice * TAMANO_VENTANA;
+        return mapear(inicio, Math.min(TAMANO_VENTANA, tamano - inicio));
+    }
+
+    /**
+     * Mapea una parte cualquiera del archivo.
+     * @param inicio la posición del primer byte.
+     * @param longitud cuántos bytes mapear; no puede pasar de Integer.MAX_VALUE.
+     * @return un buffer de solo lectura con esos bytes.
+     * @throws IOException si no se puede mapear el archivo.
+     */
+    ByteBuffer mapear(long inicio, long longitud) throws IOException {
+        return canal.map(FileChannel.MapMode.READ_ONLY, inicio, longitud);
+    }
+
+    /**
+     * Crea un flujo que recorre el archivo completo desde el principio, ventana por ventana.
+     * @return el flujo de entrada.
+     */
+    InputStream flujo() {
+        return new Flujo(0, tamano);
+    }
+
+    /**
+     * Crea un flujo que recorre solo una parte del archivo.
+     * @param inicio la posición del primer byte.
+     * @param longitud cuántos bytes leer como máximo.
+     * @return el flujo de entrada.
+     */
+    InputStream flujo(long inicio, long longitud) {
+        return new Flujo(inicio, Math.min(tamano, inicio + longitud));
+    }
+
+    /**
+     * Cierra el archivo. Los buffers ya mapeados se liberan cuando dejan de usarse.
+     * @throws IOException si no se puede cerrar.
+     */
+    @Override
+    public void close() throws IOException {
+        archivo.close();
+    }
+
+    /**
+     * Flujo de entrada que lee una parte del archivo, mapeando a lo sumo TAMANO_VENTANA bytes a la vez.
+     */
+    private class Flujo extends InputStream {
+        private ByteBuffer actual;
+        private long siguiente;
+        private final long fin;
+
+        /**
+         * Constructor de la clase Flujo.
+         * @param inicio la posición del primer byte a leer.
+         * @param fin la posición siguiente al último byte a leer.
+         */
+        Flujo(long inicio, long fin) {
+            this.siguiente = inicio;
+            this.fin = fin;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!preparar()) {
+                return -1;
+            }
+            return actual.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int inicio, int cantidad) throws IOException {
+            if (cantidad == 0) {
+                return 0;
+            }
+            if (!preparar()) {
+                return -1;
+            }
+            cantidad = Math.min(cantidad, actual.remaining());
+            actual.get(bytes, inicio, cantidad);
+            return cantidad;
+        }
+
+        @Override
+        public int available() {
+            return actual == null ? 0 : actual.remaining();
+        }
+
+        // Mapea la siguiente parte si la actual se terminó. Devuelve false al llegar al fin.
+        private boolean preparar() throws IOException {
+            while (actual == null || !actual.hasRemaining()) {
+                if (siguiente >= fin) {
+                    return false;
+                }
+                long longitud = Math.min(TAMANO_VENTANA, fin - siguiente);
+                actual = mapear(siguiente, longitud);
+                siguiente += longitud;
+            }
+            return true;
+        }
+    }
+}
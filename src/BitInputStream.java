@@ -15,9 +15,15 @@ import java.io.IOException;
  * @version 2012-03-01
  */
 public class BitInputStream extends InputStream {
+    public static final int BUFFER_SIZE = 1 << 16; // bytes read from input at a time
+    public static final int MAX_PEEK = 57;         // most bits peekBits can return
+
     private InputStream input;    // actual source to read from
-    private int digits;           // buffer to build up next byte's digits <= 8
-    private int numDigits;        // how many digits are currently in buffer
+    private byte[] buffer;        // bytes read from input but not yet used
+    private int bufferPos;        // index of the next unused byte in buffer
+    private int bufferLen;        // how many bytes of buffer are valid
+    private long bitBuffer;       // upcoming bits, next bit lowest
+    private int bitCount;         // how many bits are currently in bitBuffer
     private boolean bitMode;      // true if writing bits; false to debug ASCII
     private BitOutputStream partner;  // another stream to monitor for EOF
 
@@ -60,9 +66,11 @@ public class BitInputStream extends InputStream {
         this.input = input;
         setBitMode(bitMode);
         setPartner(partner);
-        digits = 0;
-        numDigits = 0;
-        read();    // initialize buffer
+        buffer = new byte[BUFFER_SIZE];
+        bufferPos = 0;
+        bufferLen = 0;
+        bitBuffer = 0;
+        bitCount = 0;
     }
     
     /**
@@ -77,7 +85,7 @@ public class BitInputStream extends InputStream {
     @Override
     public int available() {
         try {
-        	return input.available();
+        	return bitCount / BitOutputStream.BYTE_SIZE + bufferLen - bufferPos + input.available();
         } catch (IOException ioe) {
         	throw new BitOutputStream.BitIOException(ioe);
         }
@@ -101,10 +109,11 @@ public class BitInputStream extends InputStream {
      * @return true if more bits are available, otherwise false.
      */
     public boolean hasNextBit() {
+        boolean more = bitCount > 0 || bufferPos < bufferLen || fillBuffer();
         if (partner != null) {
-            return !partner.hasSeenEOF() && digits != -1;
+            return !partner.hasSeenEOF() && more;
         } else {
-            return digits != -1;
+            return more;
         }
     }
     
@@ -161,16 +170,22 @@ public class BitInputStream extends InputStream {
             throw new NullPointerException("should not pass a null byte array");
         }
         int count = 0;
-        while (count < length) {
-            int b = readByte();
-            if (b < 0) {
-                if (count == 0) {
-                    return -1;
-                } else {
-                    break;
-                }
-            }
-            bytes[offset + count] = (byte) b;
+        alignToByte();
+        while (count < length && bitCount > 0) {
+            // whole bytes already moved into the bit buffer come first
+            bytes[offset + count] = (byte) bitBuffer;
+            bitBuffer >>>= BitOutputStream.BYTE_SIZE;
+            bitCount -= BitOutputStream.BYTE_SIZE;
+            count++;
+        }
+        while (count < length && (bufferPos < bufferLen || fillBuffer())) {
+            int n = Math.min(length - count, bufferLen - bufferPos);
+            System.arraycopy(buffer, bufferPos, bytes, offset + count, n);
+            bufferPos += n;
+            count += n;
+        }
+        if (count == 0 && length > 0) {
+            return -1;
         }
         return count;
     }
@@ -184,14 +199,14 @@ public class BitInputStream extends InputStream {
         int result = -1;
         if (hasNextBit()) {
             if (inBitMode()) {
-                // read a single bit from our 1-byte buffer
-                result = digits % 2;
-                if (BitOutputStream.DEBUG) System.out.println("  ** BitInputStream readBit: " + result);
-                digits /= 2;
-                numDigits++;
-                if (numDigits == BitOutputStream.BYTE_SIZE) {
-                    read();   // replenish buffer if empty
+                // read a single bit from our bit buffer
+                if (bitCount == 0) {
+                    fillBits();
                 }
+                result = (int) bitBuffer & 1;
+                if (BitOutputStream.DEBUG) System.out.println("  ** BitInputStream readBit: " + result);
+                bitBuffer >>>= 1;
+                bitCount--;
             } else {
                 // read an entire byte
                 result = read();
@@ -205,6 +220,57 @@ public class BitInputStream extends InputStream {
         return result;
     }
 
+    /**
+     * Returns the next n bits of input without consuming them, next bit
+     * lowest, so that bit i of the result is what the (i + 1)-th following
+     * call to readBit would return.  Near the end of the input, the bits
+     * past the last byte are returned as 0s.
+     * @param n how many bits to look at, from 0 to MAX_PEEK.
+     * @return the bits, in the lowest n bits of the result.
+     * @throws IllegalArgumentException if n is not between 0 and MAX_PEEK.
+     * @throws BitIOException if the input stream cannot be read.
+     */
+    public long peekBits(int n) {
+        if (n < 0 || n > MAX_PEEK) {
+            throw new IllegalArgumentException("Illegal bit count: " + n);
+        }
+        if (bitCount < n) {
+            fillBits();
+        }
+        return bitBuffer & ((1L << n) - 1);
+    }
+
+    /**
+     * Consumes the next n bits of input, usually after looking at them with
+     * peekBits.
+     * @param n how many bits to consume, from 0 to MAX_PEEK.
+     * @throws IllegalArgumentException if n is not between 0 and MAX_PEEK.
+     * @throws BitIOException if fewer than n bits remain in the input.
+     */
+    public void consumeBits(int n) {
+        if (n < 0 || n > MAX_PEEK) {
+            throw new IllegalArgumentException("Illegal bit count: " + n);
+        }
+        if (bitCount < n) {
+            fillBits();
+            if (bitCount < n) {
+                throw new BitOutputStream.BitIOException("Unexpected end of input");
+            }
+        }
+        bitBuffer >>>= n;
+        bitCount -= n;
+    }
+
+    /**
+     * Skips the bits left over from a partially read byte, so that the next
+     * bit read is the first bit of a byte.  Does nothing on a byte boundary.
+     */
+    public void alignToByte() {
+        int skip = bitCount % BitOutputStream.BYTE_SIZE;
+        bitBuffer >>>= skip;
+        bitCount -= skip;
+    }
+
     /**
      * Reads and returns an entire line of text from this bit input stream as a String.
      * You would not normally want to call this method while you're reading bits
@@ -249,16 +315,48 @@ public class BitInputStream extends InputStream {
         close();
     }
 
-    // Refreshes the internal buffer with the next BYTE_SIZE bits.
+    // Returns the next whole byte, or -1 at the end of the input.
+    // Bits left over from a partially read byte are skipped.
     private int readByte() {
-        int result = digits;
+        alignToByte();
+        if (bitCount > 0) {
+            int result = (int) bitBuffer & 0xFF;
+            bitBuffer >>>= BitOutputStream.BYTE_SIZE;
+            bitCount -= BitOutputStream.BYTE_SIZE;
+            return result;
+        }
+        if (bufferPos == bufferLen && !fillBuffer()) {
+            return -1;
+        }
+        return buffer[bufferPos++] & 0xFF;
+    }
+
+    // Moves whole bytes from the byte buffer into the bit buffer
+    // until it holds more than MAX_PEEK - BYTE_SIZE bits or the input ends.
+    private void fillBits() {
+        while (bitCount <= MAX_PEEK - BitOutputStream.BYTE_SIZE) {
+            if (bufferPos == bufferLen && !fillBuffer()) {
+                return;
+            }
+            bitBuffer |= (long) (buffer[bufferPos++] & 0xFF) << bitCount;
+            bitCount += BitOutputStream.BYTE_SIZE;
+        }
+    }
+
+    // Reads the next chunk of input into the byte buffer.
+    // Returns false if the input has ended.
+    private boolean fillBuffer() {
+        int n;
         try {
-        	digits = input.read();
+            do {
+                n = input.read(buffer, 0, buffer.length);
+            } while (n == 0);
         } catch (IOException ioe) {
         	throw new BitOutputStream.BitIOException(ioe);
         }
-        numDigits = 0;
-        return result;
+        bufferPos = 0;
+        bufferLen = Math.max(n, 0);
+        return n > 0;
     }
     
     // Sets this bit input stream's "partner" output stream; 
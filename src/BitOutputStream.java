@@ -19,6 +19,7 @@ public class BitOutputStream extends PrintStream {
     public static final boolean DEBUG = false;   // set true for debug printlns
     public static final int BYTE_SIZE = 8;       // digits per byte
     public static final char EOF = (char) 256;   // character for end-of-file
+    public static final int BUFFER_SIZE = 1 << 16; // bytes buffered before writing
     
     /**
      * Converts the given character into a format that prints well on the screen.
@@ -49,8 +50,11 @@ public class BitOutputStream extends PrintStream {
 
     private OutputStream output;  // actual target to write to
     private boolean open;         // true if still open for writing
-    private int digits;           // buffer to build up next byte's digits <= 8
-    private int numDigits;        // how many digits are currently in buffer
+    private long bitBuffer;       // accumulator of pending bits, first bit lowest
+    private int bitCount;         // how many bits are currently in bitBuffer < 64
+    private byte[] buffer;        // complete bytes waiting to be written
+    private int bufferSize;       // how many bytes are currently in buffer
+    private int numDigits;        // how many ASCII digits written in byte mode
     private boolean bitMode;      // true if writing bits; false to debug ASCII
     private boolean seenEOF;      // true if this output stream has written EOF
     private String eofEncoding;   // bits to write at end of file to mark EOF
@@ -77,7 +81,10 @@ public class BitOutputStream extends PrintStream {
     	super(output);
         this.output = output;
         setBitMode(bitMode);
-        digits = 0;
+        bitBuffer = 0;
+        bitCount = 0;
+        buffer = new byte[BUFFER_SIZE];
+        bufferSize = 0;
         numDigits = 0;
         open = true;
         seenEOF = false;
@@ -93,16 +100,13 @@ public class BitOutputStream extends PrintStream {
             	writeBits(eofEncoding);
             }
             
-            if (numDigits > 0) {
-                flush();
-
-                if (!bitMode) {
-                    // pad to a multiple of 8 bits to match bit mode
-                    for (int i = numDigits; i < BYTE_SIZE; i++) {
-						writeBit(0);
-                    }
+            if (!bitMode && numDigits > 0) {
+                // pad to a multiple of 8 bits to match bit mode
+                for (int i = numDigits; i < BYTE_SIZE; i++) {
+                    writeBit(0);
                 }
             }
+            flush();
             
             try {
 				output.close();
@@ -115,16 +119,23 @@ public class BitOutputStream extends PrintStream {
     }
 
     /**
-     * Flushes the buffer.  If numDigits < BYTE_SIZE, this will 
-     * effectively pad the output with extra 0s, so this should
-     * be called only when numDigits == BYTE_SIZE or when we are
-     * closing the output.
+     * Flushes the buffer.  If the pending bits do not fill a whole byte,
+     * this will effectively pad the output with extra 0s, so this should
+     * be called only on a byte boundary or when we are closing the output.
+     * @throws BitIOException if unable to write to the underlying output stream
      */
     public void flush() {
-        if (inBitMode()) {
-        	write(digits);
-            digits = 0;
-            numDigits = 0;
+        drainBits();
+        if (bitCount > 0) {
+            bufferByte((int) bitBuffer);
+            bitBuffer = 0;
+            bitCount = 0;
+        }
+        flushBuffer();
+        try {
+            output.flush();
+        } catch (IOException e) {
+            throw new BitIOException(e);
         }
     }
     
@@ -182,11 +193,36 @@ public class BitOutputStream extends PrintStream {
         } else {
             if (DEBUG) System.out.println("  ** BitOutputStream write: " + b + " (" 
                     + toPrintable((char) b) + ")");
+            drainBits();
+            bufferByte(b);
+        }
+    }
+
+    /**
+     * Writes the given bytes to output.  Pending bits that already form
+     * whole bytes are written first, as with write(int).
+     * @param bytes the array holding the bytes to write.
+     * @param offset index of the first byte to write.
+     * @param length how many bytes to write.
+     * @throws BitIOException if unable to write to the underlying output stream
+     */
+    public void write(byte[] bytes, int offset, int length) {
+        if (seenEOF) {
+            return;
+        }
+        drainBits();
+        if (length > buffer.length - bufferSize) {
+            flushBuffer();
+        }
+        if (length > buffer.length) {
             try {
-				output.write(b);
-			} catch (IOException e) {
-				throw new BitIOException(e);
-			}
+                output.write(bytes, offset, length);
+            } catch (IOException e) {
+                throw new BitIOException(e);
+            }
+        } else {
+            System.arraycopy(bytes, offset, buffer, bufferSize, length);
+            bufferSize += length;
         }
     }
     
@@ -221,12 +257,13 @@ public class BitOutputStream extends PrintStream {
         }
         
         if (inBitMode()) {
-            // pad shifted bit into our digit buffer; flush when we hit 8 digits
-            digits += bit << numDigits;
-            numDigits++;
+            // pad shifted bit into our bit buffer; drain whole bytes, which
+            // writeBits may have left behind, so bitCount stays below 64
+            bitBuffer |= (long) bit << bitCount;
+            bitCount++;
             if (DEBUG) System.out.println("  ** BitOutputStream writeBit: " + bit);
-            if (numDigits == BYTE_SIZE) {
-                flush();
+            if (bitCount >= BYTE_SIZE) {
+                drainBits();
             }
         } else {
             // non-bit mode; just write ASCII character
@@ -255,6 +292,45 @@ public class BitOutputStream extends PrintStream {
         }
     }
 
+    /**
+     * Writes the lowest nbits bits of the given value, lowest bit first, so
+     * that writeBits(b, n) writes the same bits as n calls to writeBit with
+     * (b >> 0) & 1, (b >> 1) & 1, and so on.  In bit mode the bits go to a
+     * 64-bit accumulator that is drained 32 bits at a time into the buffer.
+     * @param bits the value holding the bits to write.
+     * @param nbits how many bits to write, from 0 to 64.
+     * @throws IllegalArgumentException if nbits is not between 0 and 64
+     */
+    public void writeBits(long bits, int nbits) {
+        if (nbits < 0 || nbits > 64) {
+            throw new IllegalArgumentException("Illegal bit count: " + nbits);
+        }
+        if (!inBitMode()) {
+            for (int i = 0; i < nbits; i++) {
+                writeBit((int) (bits >>> i) & 1);
+            }
+        } else if (nbits > 32) {
+            // keep the accumulator from overflowing
+            writeBits(bits, 32);
+            writeBits(bits >>> 32, nbits - 32);
+        } else if (nbits > 0) {
+            bitBuffer |= (bits & (-1L >>> (64 - nbits))) << bitCount;
+            bitCount += nbits;
+            if (bitCount >= 32) {
+                if (bufferSize > buffer.length - 4) {
+                    flushBuffer();
+                }
+                buffer[bufferSize] = (byte) bitBuffer;
+                buffer[bufferSize + 1] = (byte) (bitBuffer >>> 8);
+                buffer[bufferSize + 2] = (byte) (bitBuffer >>> 16);
+                buffer[bufferSize + 3] = (byte) (bitBuffer >>> 24);
+                bufferSize += 4;
+                bitBuffer >>>= 32;
+                bitCount -= 32;
+            }
+        }
+    }
+
     /**
      * Writes every character in the given string of 0s and 1s as a byte.
      * @param bytes A string entirely of 0s and 1s, such as "01001100110".
@@ -283,6 +359,35 @@ public class BitOutputStream extends PrintStream {
         close();
     }
     
+    // Moves the pending bits that form whole bytes into the buffer.
+    private void drainBits() {
+        while (bitCount >= BYTE_SIZE) {
+            bufferByte((int) bitBuffer);
+            bitBuffer >>>= BYTE_SIZE;
+            bitCount -= BYTE_SIZE;
+        }
+    }
+
+    // Adds one byte to the buffer, writing the buffer out if it is full.
+    private void bufferByte(int b) {
+        if (bufferSize == buffer.length) {
+            flushBuffer();
+        }
+        buffer[bufferSize++] = (byte) b;
+    }
+
+    // Writes the buffered bytes to the underlying output stream.
+    private void flushBuffer() {
+        if (bufferSize > 0) {
+            try {
+                output.write(buffer, 0, bufferSize);
+            } catch (IOException e) {
+                throw new BitIOException(e);
+            }
+            bufferSize = 0;
+        }
+    }
+
     /**
      * A class to represent bit I/O errors as runtime exceptions.
      * Used to avoid the forced checked exceptions usually thrown in Java I/O.
@@ -0,0 +1,72 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Codifica los datos del archivo original usando arreglos planos con el código y la longitud de cada byte, que se
+ * arman una sola vez a partir del código canónico. Cada código se escribe completo con BitOutputStream.writeBits.
+ *
+ * Como BitOutputStream escribe el primer bit de cada byte en la posición menos significativa, los códigos se guardan
+ * invertidos: el primer bit del código queda en el bit 0.
+ */
+class Codificador {
+    private final int[] codigos;
+    private final byte[] longitudes;
+
+    /**
+     * Prepara los arreglos de códigos y longitudes a partir del código canónico.
+     * @param codigo el código canónico con el que se va a comprimir. Ningún código puede pasar de 32 bits.
+     */
+    Codificador(CodigoCanonico codigo) {
+        codigos = new int[CodigoCanonico.SIMBOLOS];
+        longitudes = new byte[CodigoCanonico.SIMBOLOS];
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            int longitud = codigo.longitud(x);
+            long original = codigo.codigo(x);
+            int invertido = 0;
+            for (int b = 0; b < longitud; b++) {
+                invertido |= (int) (original >>> (longitud - 1 - b) & 1) << b;
+            }
+            codigos[x] = invertido;
+            longitudes[x] = (byte) longitud;
+        }
+    }
+
+    /**
+     * Escribe en la salida el código de un solo byte, para cuando cada byte puede usar un codificador distinto.
+     * @param simbolo el byte (0 a 255).
+     * @param salida donde se escribe el código.
+     */
+    void codificar(int simbolo, BitOutputStream salida) {
+        salida.writeBits(codigos[simbolo], longitudes[simbolo]);
+    }
+
+    /**
+     * Escribe en la salida el código de cada byte del bloque.
+     * @param bloque el arreglo con los datos originales.
+     * @param inicio la posición del primer byte a codificar.
+     * @param cantidad cuántos bytes codificar.
+     * @param salida donde se escriben los datos comprimidos.
+     */
+    void codificar(byte[] bloque, int inicio, int cantidad, BitOutputStream salida) {
+        int fin = inicio + cantidad;
+        for (int x = inicio; x < fin; x++) {
+            int simbolo = bloque[x] & 0xFF;
+            salida.writeBits(codigos[simbolo], longitudes[simbolo]);
+        }
+    }
+
+    /**
+     * Escribe en la salida el código de cada byte que le queda al buffer, copiándolos por bloques. La posición del
+     * buffer no se modifica. El último byte no se completa; eso lo hace la salida al cerrarse.
+     * @param datos el buffer con los datos originales; por ejemplo, una ventana de un archivo mapeado.
+     * @param salida donde se escriben los datos comprimidos.
+     */
+    void codificar(ByteBuffer datos, BitOutputStream salida) {
+        ByteBuffer copia = datos.duplicate();
+        byte[] bloque = new byte[Math.min(Histograma.TAMANO_BLOQUE, copia.remaining())];
+        while (copia.hasRemaining()) {
+            int cantidad = Math.min(bloque.length, copia.remaining());
+            copia.get(bloque, 0, cantidad);
+            codificar(bloque, 0, cantidad, salida);
+        }
+    }
+}
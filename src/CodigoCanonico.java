@@ -0,0 +1,88 @@
+/**
+ * Representa un código de Huffman canónico. Un código canónico queda completamente determinado por la longitud del
+ * código de cada símbolo: los códigos se asignan en orden de longitud y, dentro de una misma longitud, en orden de
+ * símbolo. Por eso en el archivo comprimido basta con guardar las longitudes, y el descompresor regenera los códigos.
+ */
+class CodigoCanonico {
+    static final int SIMBOLOS = 256;
+    // Con menos caracteres distintos que este límite, el encabezado guarda pares (caracter, longitud);
+    // si no, guarda directamente las 256 longitudes.
+    static final int LIMITE_PARES = 128;
+
+    private final int[] longitudes;
+    private final long[] codigos;
+
+    /**
+     * Construye el código canónico correspondiente a las longitudes dadas.
+     * @param longitudes la longitud del código de cada símbolo (0 a 255). Un 0 indica que el símbolo no tiene código.
+     */
+    CodigoCanonico(int[] longitudes) {
+        this.longitudes = longitudes;
+        codigos = new long[SIMBOLOS];
+        int maximo = 0;
+        for (int x = 0; x < SIMBOLOS; x++) {
+            maximo = Math.max(maximo, longitudes[x]);
+        }
+        int[] cuenta = new int[maximo + 1];
+        for (int x = 0; x < SIMBOLOS; x++) {
+            cuenta[longitudes[x]]++;
+        }
+        cuenta[0] = 0;
+        long[] siguiente = new long[maximo + 1];
+        long codigo = 0;
+        for (int l = 1; l <= maximo; l++) {
+            codigo = (codigo + cuenta[l - 1]) << 1;
+            siguiente[l] = codigo;
+        }
+        for (int x = 0; x < SIMBOLOS; x++) {
+            if (longitudes[x] > 0) {
+                codigos[x] = siguiente[longitudes[x]]++;
+            }
+        }
+    }
+
+    /**
+     * Revisa la desigualdad de Kraft: las longitudes tienen que alcanzar para códigos distintos, sin que uno sea prefijo
+     * de otro (la suma de 2^-longitud no puede pasar de 1), y tiene que haber al menos un código.
+     * @param longitudes la longitud del código de cada símbolo, como se leyó del archivo comprimido.
+     * @return true si se puede armar un código canónico con esas longitudes.
+     */
+    static boolean valido(int[] longitudes) {
+        int[] cuenta = new int[SIMBOLOS];
+        boolean alguno = false;
+        for (int x = 0; x < SIMBOLOS; x++) {
+            if (longitudes[x] < 0 || longitudes[x] >= SIMBOLOS) {
+                return false;
+            }
+            cuenta[longitudes[x]]++;
+            alguno |= longitudes[x] > 0;
+        }
+        // códigos de cada longitud que todavía quedan libres; pasado SIMBOLOS ya alcanzan para cualquier tabla
+        long libres = 1;
+        for (int l = 1; l < SIMBOLOS; l++) {
+            libres = Math.min(2 * libres - cuenta[l], SIMBOLOS);
+            if (libres < 0) {
+                return false;
+            }
+        }
+        return alguno;
+    }
+
+    /**
+     * Devuelve la longitud del código de un símbolo.
+     * @param simbolo el símbolo (0 a 255).
+     * @return la longitud de su código.
+     */
+    int longitud(int simbolo) {
+        return longitudes[simbolo];
+    }
+
+    /**
+     * Devuelve el código canónico de un símbolo. El primer bit del código es el más significativo.
+     * @param simbolo el símbolo (0 a 255).
+     * @return el código, alineado a la derecha.
+     */
+    long codigo(int simbolo) {
+        return codigos[simbolo];
+    }
+}
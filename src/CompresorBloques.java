@@ -0,0 +1,148 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Compresión por bloques. El archivo se divide en bloques de tamaño fijo que se codifican en paralelo y se escriben en
+ * orden. Cada bloque comprimido empieza en un byte nuevo, con un byte que indica con qué tabla se codificó (ver
+ * SelectorTabla): la del encabezado general, una propia que va a continuación, la compartida o ninguna, y si los
+ * códigos van en un solo flujo o repartidos en sub-flujos (ver FlujosIntercalados). Después del
+ * último bloque va el índice de bloques (ver IndiceBloques), para poder ubicar los bloques sin recorrer el archivo.
+ */
+class CompresorBloques {
+    static final int TAMANO_BLOQUE = 1 << 20;
+
+    private final Encabezado general;
+    private final Codificador codificador;
+    private final SelectorTabla selector;
+    private final TablaCompartida predefinida;
+    private final boolean intercalado;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor de la clase CompresorBloques.
+     * @param general el encabezado general, con la tabla de todo el archivo.
+     * @param predefinida la tabla compartida que pueden usar los bloques, o null si no se tiene ninguna.
+     * @param intercalado true para codificar cada bloque en sub-flujos.
+     * @param pool los hilos en los que se codifican los bloques.
+     */
+    CompresorBloques(Encabezado general, TablaCompartida predefinida, boolean intercalado, ForkJoinPool pool) {
+        this.general = general;
+        this.codificador = new Codificador(new CodigoCanonico(general.longitudes));
+        this.selector = new SelectorTabla(general.longitudMaxima, predefinida);
+        this.predefinida = predefinida;
+        this.intercalado = intercalado;
+        this.pool = pool;
+    }
+
+    /**
+     * Comprime el archivo completo. Se codifican a la vez a lo sumo dos bloques por hilo, para que la memoria usada no
+     * dependa del tamaño del archivo.
+     * @param archivo el archivo original, mapeado en memoria.
+     * @param tamBloque el tamaño de cada bloque, en bytes (el último puede ser más chico).
+     * @param encabezado los bytes del encabezado, que se escriben antes del primer bloque.
+     * @param destino donde se escribe el archivo comprimido. Se vacía al terminar, pero no se cierra.
+     * @throws IOException si no se puede leer el archivo original o escribir el comprimido.
+     */
+    void comprimir(ArchivoMapeado archivo, int tamBloque, byte[] encabezado, OutputStream destino) throws IOException {
+        int bloques = (int) ((archivo.tamano() + tamBloque - 1) / tamBloque);
+        IndiceBloques indice = new IndiceBloques(bloques);
+        int enVuelo = 2 * pool.getParallelism();
+        List<Future<byte[]>> tareas = new ArrayList<>(enVuelo);
+        for (int x = 0; x < Math.min(enVuelo, bloques); x++) {
+            tareas.add(enviar(archivo, x, tamBloque));
+        }
+
+        DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(destino, BitOutputStream.BUFFER_SIZE));
+        salida.write(encabezado);
+        long posicion = encabezado.length;
+        for (int x = 0; x < bloques; x++) {
+            byte[] datos = esperar(tareas.get(x % enVuelo));
+            if (x + enVuelo < bloques) {
+                tareas.set(x % enVuelo, enviar(archivo, x + enVuelo, tamBloque));
+            }
+            indice.agregar(posicion * 8, (int) Math.min(tamBloque, archivo.tamano() - (long) x * tamBloque));
+            salida.write(datos);
+            posicion += datos.length;
+        }
+        indice.escribir(salida, posicion);
+        salida.flush();
+    }
+
+    /**
+     * Codifica un bloque en memoria, con la tabla que resulte más pequeña para ese bloque.
+     * @param archivo el archivo original.
+     * @param inicio la posición del primer byte del bloque.
+     * @param longitud el tamaño del bloque.
+     * @return los bytes del bloque comprimido, con el último byte completado con ceros.
+     * @throws IOException si no se puede mapear el bloque.
+     */
+    byte[] codificarBloque(ArchivoMapeado archivo, long inicio, int longitud) throws IOException {
+        ByteBuffer datos = archivo.mapear(inicio, longitud);
+        Histograma histograma = new Histograma();
+        histograma.agregar(datos);
+        Encabezado eleccion = selector.elegir(histograma, general, intercalado);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(longitud / 2 + 16);
+        BitOutputStream salida = new BitOutputStream(bytes);
+        boolean enFlujos = intercalado && eleccion.tipoBloque != SelectorTabla.CRUDO;
+        salida.write(enFlujos ? eleccion.tipoBloque | SelectorTabla.INTERCALADO : eleccion.tipoBloque);
+        switch (eleccion.tipoBloque) {
+            case SelectorTabla.NUEVA:
+                eleccion.escribirTabla(salida);
+                codificar(new Codificador(new CodigoCanonico(eleccion.longitudes)), datos, salida);
+                break;
+            case SelectorTabla.ANTERIOR:
+                codificar(codificador, datos, salida);
+                break;
+            case SelectorTabla.PREDEFINIDA:
+                codificar(predefinida.codificador(), datos, salida);
+                break;
+            default:
+                byte[] crudo = new byte[longitud];
+                datos.duplicate().get(crudo);
+                salida.write(crudo, 0, longitud);
+                break;
+        }
+        salida.close();
+        return bytes.toByteArray();
+    }
+
+    // Escribe los códigos del bloque en un solo flujo o en sub-flujos.
+    private void codificar(Codificador codificadorBloque, ByteBuffer datos, BitOutputStream salida) {
+        if (intercalado) {
+            FlujosIntercalados.codificar(codificadorBloque, datos, salida);
+        } else {
+            codificadorBloque.codificar(datos, salida);
+        }
+    }
+
+    // Manda a codificar el bloque número 'bloque' a los hilos.
+    private Future<byte[]> enviar(ArchivoMapeado archivo, int bloque, int tamBloque) {
+        long inicio = (long) bloque * tamBloque;
+        int longitud = (int) Math.min(tamBloque, archivo.tamano() - inicio);
+        return pool.submit(() -> codificarBloque(archivo, inicio, longitud));
+    }
+
+    // Espera a que termine de codificarse un bloque.
+    private static byte[] esperar(Future<byte[]> tarea) throws IOException {
+        try {
+            return tarea.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpió la compresión", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw new IOException(exception.getCause());
+        }
+    }
+}
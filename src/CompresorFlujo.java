@@ -0,0 +1,128 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresión en una sola pasada, para entradas que no se pueden recorrer dos veces (la entrada estándar, un socket).
+ * Se lee un bloque a la vez, se cuentan sus frecuencias, se elige con qué tabla codificarlo (ver SelectorTabla) y se
+ * escribe el bloque con su propio encabezado antes de leer el siguiente. La memoria usada depende del tamaño de bloque
+ * y no del tamaño de la entrada. Opcionalmente, los códigos de cada bloque se reparten en sub-flujos (ver
+ * FlujosIntercalados) para que se decodifiquen más rápido.
+ */
+class CompresorFlujo {
+    private final SelectorTabla selector;
+    private final TablaCompartida predefinida;
+    private final boolean intercalado;
+
+    /**
+     * Constructor de la clase CompresorFlujo.
+     * @param longitudMaxima la longitud máxima de los códigos de las tablas nuevas.
+     * @param predefinida la tabla compartida que pueden usar los bloques, o null si no se tiene ninguna.
+     * @param intercalado true para codificar cada bloque en sub-flujos.
+     */
+    CompresorFlujo(int longitudMaxima, TablaCompartida predefinida, boolean intercalado) {
+        this.selector = new SelectorTabla(longitudMaxima, predefinida);
+        this.predefinida = predefinida;
+        this.intercalado = intercalado;
+    }
+
+    /**
+     * Comprime una entrada hasta que se termina.
+     * @param entrada de donde se leen los datos originales.
+     * @param extension la extensión que se guarda en el encabezado, para nombrar el archivo al descomprimir.
+     * @param tamBloque el tamaño máximo de cada bloque, en bytes.
+     * @param destino donde se escribe el archivo comprimido. Se vacía al terminar cada bloque, pero no se cierra.
+     * @return la cantidad de bytes originales leídos.
+     * @throws IOException si no se puede leer la entrada.
+     * @throws BitOutputStream.BitIOException si no se puede escribir la salida; CompresorHuffman la convierte en
+     *                                        IOException.
+     */
+    long comprimir(InputStream entrada, String extension, int tamBloque, OutputStream destino) throws IOException {
+        BitOutputStream salida = new BitOutputStream(destino);
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = extension;
+        encabezado.formato = Encabezado.FORMATO_FLUJO;
+        encabezado.tamBloque = tamBloque;
+        encabezado.idTabla = predefinida == null ? 0 : predefinida.id();
+        encabezado.escribirConFirma(salida);
+
+        byte[] bloque = new byte[tamBloque];
+        ByteArrayOutputStream datos = new ByteArrayOutputStream(tamBloque / 2 + 16);
+        Histograma histograma = new Histograma();
+        Encabezado anterior = null;
+        Codificador codificadorAnterior = null;
+        long total = 0;
+        int leidos = llenar(entrada, bloque);
+        while (leidos > 0) {
+            histograma.reiniciar();
+            histograma.agregar(bloque, 0, leidos);
+            Encabezado encabezadoBloque = selector.elegir(histograma, anterior, intercalado);
+            Codificador codificador = null;
+            switch (encabezadoBloque.tipoBloque) {
+                case SelectorTabla.NUEVA:
+                    anterior = encabezadoBloque;
+                    codificadorAnterior = new Codificador(new CodigoCanonico(encabezadoBloque.longitudes));
+                    codificador = codificadorAnterior;
+                    break;
+                case SelectorTabla.ANTERIOR:
+                    codificador = codificadorAnterior;
+                    break;
+                case SelectorTabla.PREDEFINIDA:
+                    codificador = predefinida.codificador();
+                    break;
+                default:
+                    break;
+            }
+            datos.reset();
+            codificarBloque(bloque, leidos, codificador, datos);
+            encabezadoBloque.intercalado = intercalado && codificador != null;
+            encabezadoBloque.tamArchivo = leidos;
+            encabezadoBloque.tamComprimido = datos.size();
+            encabezadoBloque.escribirBloque(salida);
+            datos.writeTo(salida);
+            salida.flush();
+            total += leidos;
+            leidos = llenar(entrada, bloque);
+        }
+        new Encabezado().escribirBloque(salida); // bloque vacío: fin del archivo
+        salida.flush();
+        return total;
+    }
+
+    /**
+     * Codifica un bloque.
+     * @param bloque los bytes originales.
+     * @param longitud cuántos bytes del arreglo forman el bloque.
+     * @param codificador el codificador de la tabla elegida, o null para guardar los bytes tal cual.
+     * @param datos donde se escriben los bytes comprimidos, con el último byte completado con ceros.
+     */
+    private void codificarBloque(byte[] bloque, int longitud, Codificador codificador, ByteArrayOutputStream datos) {
+        if (codificador == null) {
+            datos.write(bloque, 0, longitud);
+            return;
+        }
+        BitOutputStream bits = new BitOutputStream(datos);
+        if (intercalado) {
+            FlujosIntercalados.codificar(codificador, ByteBuffer.wrap(bloque, 0, longitud), bits);
+        } else {
+            codificador.codificar(bloque, 0, longitud, bits);
+        }
+        bits.close();
+    }
+
+    // Lee hasta llenar el arreglo o hasta que se termine la entrada. Devuelve cuántos bytes se leyeron; 0 si la
+    // entrada ya se había terminado.
+    private static int llenar(InputStream entrada, byte[] bloque) throws IOException {
+        int leidos = 0;
+        while (leidos < bloque.length) {
+            int n = entrada.read(bloque, leidos, bloque.length - leidos);
+            if (n < 0) {
+                break;
+            }
+            leidos += n;
+        }
+        return leidos;
+    }
+}
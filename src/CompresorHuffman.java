@@ -0,0 +1,338 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compresor para usar desde otros programas. A diferencia de Main, no escribe mensajes ni termina el proceso: los
+ * errores se informan con excepciones. Una misma instancia se puede usar para comprimir muchas entradas, incluso
+ * desde varios hilos a la vez, porque no guarda nada entre una compresión y otra.
+ *
+ * Todas las opciones de la línea de comandos se pueden elegir con los constructores: la tabla compartida (-t, ver
+ * TablaCompartida), el modelo de orden 1 (-o) y los sub-flujos (-i). Las clases del programa están en el paquete sin
+ * nombre, y Java no permite importarlas desde un paquete con nombre: solo se pueden usar desde código que también esté
+ * en el paquete sin nombre, o copiando las fuentes a un paquete propio.
+ */
+public class CompresorHuffman {
+    private final int longitudMaxima;
+    private final int tamBloque;
+    private final boolean adaptativo;
+    private final boolean contexto;
+    private final boolean intercalado;
+    private final TablaCompartida tabla;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un compresor con las opciones por defecto: formato simple y códigos de hasta 32 bits.
+     */
+    public CompresorHuffman() {
+        this(LongitudLimitada.LONGITUD_MAXIMA, 0, false);
+    }
+
+    /**
+     * Crea un compresor.
+     * @param longitudMaxima la longitud máxima de los códigos, entre 8 y 32 bits.
+     * @param tamBloque el tamaño de los bloques en bytes, o 0 para no dividir la entrada en bloques.
+     * @param adaptativo true para usar Huffman adaptativo, sin tabla; en ese caso tamBloque no se usa.
+     * @throws IllegalArgumentException si la longitud máxima o el tamaño de bloque no son válidos.
+     */
+    public CompresorHuffman(int longitudMaxima, int tamBloque, boolean adaptativo) {
+        this(longitudMaxima, tamBloque, adaptativo, null);
+    }
+
+    /**
+     * Crea un compresor que usa una tabla entrenada de antemano. Sin bloques, el resultado lleva solo el identificador
+     * de la tabla y no hace falta armar ningún árbol. Al comprimir por bloques (un archivo con tamBloque mayor que 0, o
+     * un flujo), cada bloque usa la tabla compartida o una propia, según cuál ocupe menos.
+     * @param longitudMaxima la longitud máxima de los códigos, entre 8 y 32 bits.
+     * @param tamBloque el tamaño de los bloques en bytes, o 0 para no dividir la entrada en bloques.
+     * @param adaptativo true para usar Huffman adaptativo, sin tabla; en ese caso tamBloque no se usa.
+     * @param tabla la tabla compartida, o null para armar una tabla para cada entrada.
+     * @throws IllegalArgumentException si las opciones no son válidas o se pide una tabla junto con el modo adaptativo.
+     */
+    public CompresorHuffman(int longitudMaxima, int tamBloque, boolean adaptativo, TablaCompartida tabla) {
+        this(longitudMaxima, tamBloque, adaptativo, false, false, tabla);
+    }
+
+    /**
+     * Crea un compresor con todas las opciones. El modelo de orden 1 usa una tabla según el byte anterior (ver
+     * ModeloContexto); ese modo recorre la entrada dos veces y no se combina con los bloques, el modo adaptativo ni la
+     * tabla compartida.
+     * @param longitudMaxima la longitud máxima de los códigos, entre 8 y 32 bits.
+     * @param tamBloque el tamaño de los bloques en bytes, o 0 para no dividir la entrada en bloques.
+     * @param adaptativo true para usar Huffman adaptativo, sin tabla; en ese caso tamBloque no se usa.
+     * @param contexto true para usar el modelo de orden 1.
+     * @param intercalado true para codificar cada bloque en sub-flujos (ver FlujosIntercalados), que se decodifican más
+     *                    rápido. Solo se usa al comprimir por bloques: un archivo con tamBloque mayor que 0, o un flujo.
+     * @param tabla la tabla compartida, o null para armar una tabla para cada entrada.
+     * @throws IllegalArgumentException si las opciones no son válidas o no se pueden combinar.
+     */
+    public CompresorHuffman(int longitudMaxima, int tamBloque, boolean adaptativo, boolean contexto, boolean intercalado,
+                     TablaCompartida tabla) {
+        if (tabla != null && adaptativo) {
+            throw new IllegalArgumentException("El modo adaptativo no usa tabla");
+        }
+        if (contexto && (adaptativo || tabla != null || tamBloque > 0)) {
+            throw new IllegalArgumentException("El modo de contexto no se combina con bloques, el modo adaptativo ni una tabla compartida");
+        }
+        if (intercalado && (adaptativo || contexto)) {
+            throw new IllegalArgumentException("Los sub-flujos solo se usan con tablas, no con el modo adaptativo ni el de contexto");
+        }
+        if (longitudMaxima < LongitudLimitada.LONGITUD_MINIMA || longitudMaxima > LongitudLimitada.LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("Longitud máxima inválida: " + longitudMaxima);
+        }
+        if (tamBloque < 0) {
+            throw new IllegalArgumentException("Tamaño de bloque inválido: " + tamBloque);
+        }
+        this.longitudMaxima = longitudMaxima;
+        this.tamBloque = tamBloque;
+        this.adaptativo = adaptativo;
+        this.contexto = contexto;
+        this.intercalado = intercalado;
+        this.tabla = tabla;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Comprime un archivo. Se mapea en memoria y se recorre dos veces: una para contar las frecuencias, repartida entre
+     * los hilos, y otra para codificarlo (salvo en el modo adaptativo, que lo recorre una sola vez).
+     * @param origen el archivo original. Su extensión se guarda en el encabezado.
+     * @param destino el archivo comprimido que se crea.
+     * @throws IOException si no se puede leer el original o escribir el comprimido.
+     */
+    public void comprimir(File origen, File destino) throws IOException {
+        try (ArchivoMapeado archivo = new ArchivoMapeado(origen);
+             OutputStream salida = new FileOutputStream(destino)) {
+            comprimir(archivo, extension(origen.getName()), salida);
+        }
+    }
+
+    /**
+     * Comprime los bytes de un buffer, desde su posición hasta su límite. La posición del buffer no cambia. El
+     * formato por bloques solo se usa al comprimir archivos; acá se usa el formato simple.
+     * @param datos los bytes originales.
+     * @param extension la extensión que se guarda en el encabezado.
+     * @param salida donde se escribe el resultado. No se cierra.
+     * @throws IOException si no se puede escribir la salida.
+     */
+    public void comprimir(ByteBuffer datos, String extension, OutputStream salida) throws IOException {
+        try {
+            comprimirBuffer(datos, extension, salida);
+        } catch (BitOutputStream.BitIOException exception) {
+            throw causa(exception);
+        }
+    }
+
+    // Comprime un buffer; los errores de escritura salen como BitIOException.
+    private void comprimirBuffer(ByteBuffer datos, String extension, OutputStream salida) throws IOException {
+        if (adaptativo) {
+            comprimirAdaptativo(new FlujoBuffer(datos), extension, salida);
+            return;
+        }
+        if (contexto) {
+            comprimirContexto(new ByteBuffer[] {datos}, extension, salida);
+            return;
+        }
+        if (tabla != null) {
+            BitOutputStream bits = encabezadoCompartido(extension, salida);
+            tabla.escribirTrozo(datos, bits);
+            tabla.escribirFin(bits);
+            terminar(bits);
+            return;
+        }
+        Histograma histograma = new Histograma();
+        histograma.agregar(datos, pool);
+        Encabezado encabezado = encabezado(histograma, extension);
+        BitOutputStream bits = new BitOutputStream(salida);
+        encabezado.escribirConFirma(bits);
+        new Codificador(new CodigoCanonico(encabezado.longitudes)).codificar(datos.duplicate(), bits);
+        terminar(bits);
+    }
+
+    /**
+     * Comprime un flujo en una sola pasada, por bloques que eligen cada uno su tabla (o con Huffman adaptativo). Sirve
+     * para entradas que no se pueden recorrer dos veces.
+     * @param entrada de donde se leen los datos originales, hasta que se terminan.
+     * @param extension la extensión que se guarda en el encabezado.
+     * @param salida donde se escribe el resultado. No se cierra.
+     * @return la cantidad de bytes originales leídos.
+     * @throws IOException si no se puede leer la entrada o escribir la salida.
+     * @throws IllegalStateException si el compresor usa el modelo de orden 1, que necesita recorrer la entrada dos veces.
+     */
+    public long comprimir(InputStream entrada, String extension, OutputStream salida) throws IOException {
+        if (contexto) {
+            throw new IllegalStateException("El modo de contexto no sirve para flujos: necesita recorrer la entrada dos veces");
+        }
+        try {
+            return comprimirEntrada(entrada, extension, salida);
+        } catch (BitOutputStream.BitIOException exception) {
+            throw causa(exception);
+        }
+    }
+
+    // Comprime un flujo; los errores de escritura salen como BitIOException.
+    private long comprimirEntrada(InputStream entrada, String extension, OutputStream salida) throws IOException {
+        if (adaptativo) {
+            return comprimirAdaptativo(entrada, extension, salida);
+        }
+        int bloque = tamBloque > 0 ? tamBloque : CompresorBloques.TAMANO_BLOQUE;
+        return new CompresorFlujo(longitudMaxima, tabla, intercalado).comprimir(entrada, extension, bloque, salida);
+    }
+
+    /**
+     * Comprime un archivo ya mapeado.
+     * @param archivo el archivo original.
+     * @param extension la extensión que se guarda en el encabezado.
+     * @param salida donde se escribe el resultado. No se cierra.
+     * @throws IOException si no se puede leer el original o escribir el comprimido.
+     */
+    void comprimir(ArchivoMapeado archivo, String extension, OutputStream salida) throws IOException {
+        try {
+            comprimirArchivo(archivo, extension, salida);
+        } catch (BitOutputStream.BitIOException exception) {
+            throw causa(exception);
+        }
+    }
+
+    // Comprime un archivo mapeado; los errores de escritura salen como BitIOException.
+    private void comprimirArchivo(ArchivoMapeado archivo, String extension, OutputStream salida) throws IOException {
+        if (adaptativo) {
+            comprimirAdaptativo(archivo.flujo(), extension, salida);
+            return;
+        }
+        if (contexto) {
+            ByteBuffer[] ventanas = new ByteBuffer[archivo.cantidadVentanas()];
+            for (int x = 0; x < ventanas.length; x++) {
+                ventanas[x] = archivo.ventana(x);
+            }
+            comprimirContexto(ventanas, extension, salida);
+            return;
+        }
+        if (tabla != null && tamBloque == 0) {
+            BitOutputStream bits = encabezadoCompartido(extension, salida);
+            for (int x = 0; x < archivo.cantidadVentanas(); x++) {
+                tabla.escribirTrozo(archivo.ventana(x), bits);
+            }
+            tabla.escribirFin(bits);
+            terminar(bits);
+            return;
+        }
+        Histograma histograma = new Histograma();
+        for (int x = 0; x < archivo.cantidadVentanas(); x++) {
+            histograma.agregar(archivo.ventana(x), pool);
+        }
+        Encabezado encabezado = encabezado(histograma, extension);
+        if (tamBloque > 0) {
+            encabezado.formato = Encabezado.FORMATO_BLOQUES;
+            encabezado.tamBloque = tamBloque;
+            encabezado.idTabla = tabla == null ? 0 : tabla.id();
+            ByteArrayOutputStream bytesEncabezado = new ByteArrayOutputStream();
+            BitOutputStream bits = new BitOutputStream(bytesEncabezado);
+            encabezado.escribirConFirma(bits);
+            bits.close();
+            new CompresorBloques(encabezado, tabla, intercalado, pool).comprimir(archivo, tamBloque, bytesEncabezado.toByteArray(), salida);
+        } else {
+            Codificador codificador = new Codificador(new CodigoCanonico(encabezado.longitudes));
+            BitOutputStream bits = new BitOutputStream(salida);
+            encabezado.escribirConFirma(bits);
+            for (int x = 0; x < archivo.cantidadVentanas(); x++) {
+                codificador.codificar(archivo.ventana(x), bits);
+            }
+            terminar(bits);
+        }
+    }
+
+    // Comprime con Huffman adaptativo, en una sola pasada.
+    private long comprimirAdaptativo(InputStream entrada, String extension, OutputStream salida) throws IOException {
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = extension;
+        encabezado.formato = Encabezado.FORMATO_ADAPTATIVO;
+        BitOutputStream bits = new BitOutputStream(salida);
+        encabezado.escribirConFirma(bits);
+        long total = new HuffmanAdaptativo().comprimir(entrada, bits);
+        terminar(bits);
+        return total;
+    }
+
+    // Comprime con el modelo de orden 1: una pasada para contar y agrupar los contextos y otra para codificar.
+    private void comprimirContexto(ByteBuffer[] ventanas, String extension, OutputStream salida) throws IOException {
+        HistogramaContexto histograma = new HistogramaContexto();
+        long total = 0;
+        for (ByteBuffer ventana : ventanas) {
+            histograma.agregar(ventana);
+            total += ventana.remaining();
+        }
+        ModeloContexto modelo = ModeloContexto.entrenar(histograma, longitudMaxima);
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = extension;
+        encabezado.formato = Encabezado.FORMATO_CONTEXTO;
+        encabezado.tamArchivo = total;
+        BitOutputStream bits = new BitOutputStream(salida);
+        encabezado.escribirConFirma(bits);
+        modelo.escribir(bits);
+        int anterior = 0;
+        for (ByteBuffer ventana : ventanas) {
+            anterior = modelo.codificar(ventana, anterior, bits);
+        }
+        terminar(bits);
+    }
+
+    // Escribe el encabezado del formato compartido y devuelve el flujo de bits donde van los trozos.
+    private BitOutputStream encabezadoCompartido(String extension, OutputStream salida) {
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = extension;
+        encabezado.formato = Encabezado.FORMATO_COMPARTIDO;
+        encabezado.idTabla = tabla.id();
+        BitOutputStream bits = new BitOutputStream(salida);
+        encabezado.escribirConFirma(bits);
+        return bits;
+    }
+
+    // Arma el encabezado del formato simple, con las longitudes de los códigos para el histograma. Si hay un solo
+    // caracter (o ninguno, en una entrada vacía) se usa el código vacío.
+    private Encabezado encabezado(Histograma histograma, String extension) {
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = extension;
+        encabezado.tamArchivo = histograma.total();
+        encabezado.longitudMaxima = longitudMaxima;
+        if (histograma.simbolosDistintos() > 1) {
+            encabezado.longitudes = ConstructorCodigos.longitudes(histograma, longitudMaxima);
+        } else {
+            encabezado.simboloUnico = 0;
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                if (histograma.frecuencia(x) > 0) {
+                    encabezado.simboloUnico = x;
+                }
+            }
+        }
+        return encabezado;
+    }
+
+    // Completa el último byte y vacía la salida, sin cerrarla. BitOutputStream avisa los errores de escritura con
+    // BitIOException, que no es verificada; los métodos comprimir la convierten en IOException (ver causa).
+    private static void terminar(BitOutputStream bits) {
+        bits.flush();
+    }
+
+    /**
+     * Devuelve el error de entrada/salida que envuelve una BitIOException, para lanzarlo como excepción verificada.
+     * @param exception el error de BitOutputStream o BitInputStream.
+     * @return su causa, si es una IOException, o una IOException nueva con el mismo mensaje.
+     */
+    static IOException causa(BitOutputStream.BitIOException exception) {
+        if (exception.getCause() instanceof IOException) {
+            return (IOException) exception.getCause();
+        }
+        return new IOException(exception.getMessage(), exception);
+    }
+
+    // Devuelve lo que está después del último punto del nombre, o "" si no tiene.
+    private static String extension(String nombre) {
+        int punto = nombre.lastIndexOf('.');
+        return punto < 0 ? "" : nombre.substring(punto + 1);
+    }
+}
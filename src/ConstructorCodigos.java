@@ -0,0 +1,28 @@
+/**
+ * Construcción de los códigos de Huffman a partir de las frecuencias: las longitudes de los códigos canónicos, que
+ * salen de la profundidad de cada hoja del árbol (ver ArbolCompacto), limitadas a una longitud máxima.
+ */
+class ConstructorCodigos {
+
+    /**
+     * Constructor privado; la clase solo tiene métodos estáticos.
+     */
+    private ConstructorCodigos() {
+    }
+
+    /**
+     * Calcula las longitudes de los códigos canónicos para un histograma, de una sola vez.
+     * @param histograma las frecuencias de los caracteres.
+     * @param longitudMaxima la longitud máxima permitida para los códigos.
+     * @return la longitud del código de cada uno de los 256 caracteres (0 si no aparece, o si es el único).
+     */
+    static int[] longitudes(Histograma histograma, int longitudMaxima) {
+        int[] longitudes = new ArbolCompacto(histograma).longitudes();
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            if (longitudes[x] > longitudMaxima) {
+                return LongitudLimitada.calcular(histograma, longitudMaxima);
+            }
+        }
+        return longitudes;
+    }
+}
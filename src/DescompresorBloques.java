@@ -0,0 +1,127 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Descompresión en paralelo de un archivo comprimido por bloques. Con el índice de bloques se sabe dónde empieza cada
+ * bloque en el archivo comprimido y dónde va en el archivo original, así que cada hilo decodifica un bloque por su
+ * cuenta y lo escribe directamente en su posición del archivo de salida.
+ */
+class DescompresorBloques {
+    private final TablaDecodificacion tabla;
+    private final TablaCompartida predefinida;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor de la clase DescompresorBloques.
+     * @param general el encabezado general, con la tabla de todo el archivo.
+     * @param predefinida la tabla compartida indicada en el encabezado general, o null si no se usó ninguna.
+     * @param pool los hilos en los que se decodifican los bloques.
+     */
+    DescompresorBloques(Encabezado general, TablaCompartida predefinida, ForkJoinPool pool) {
+        this.tabla = general.decodificador();
+        this.predefinida = predefinida;
+        this.pool = pool;
+    }
+
+    /**
+     * Descomprime todos los bloques. Se decodifican a la vez a lo sumo dos bloques por hilo.
+     * @param archivo el archivo comprimido, mapeado en memoria.
+     * @param indice el índice de bloques del archivo.
+     * @param destino el archivo de salida. Cada bloque se escribe en su posición, sin mover la posición del canal.
+     * @throws IOException si algún bloque está dañado o no se puede escribir la salida.
+     */
+    void descomprimir(ArchivoMapeado archivo, IndiceBloques indice, FileChannel destino) throws IOException {
+        int bloques = indice.numElementos();
+        int enVuelo = 2 * pool.getParallelism();
+        List<Future<Void>> tareas = new ArrayList<>(enVuelo);
+        for (int x = 0; x < bloques; x++) {
+            if (x >= enVuelo) {
+                esperar(tareas.get(x % enVuelo));
+            }
+            int bloque = x;
+            Future<Void> tarea = pool.submit(() -> {
+                ByteBuffer datos = ByteBuffer.wrap(decodificarBloque(archivo, indice, bloque));
+                long posicion = indice.posicion(bloque);
+                while (datos.hasRemaining()) {
+                    posicion += destino.write(datos, posicion);
+                }
+                return null;
+            });
+            if (x < enVuelo) {
+                tareas.add(tarea);
+            } else {
+                tareas.set(x % enVuelo, tarea);
+            }
+        }
+        for (int x = Math.max(0, bloques - enVuelo); x < bloques; x++) {
+            esperar(tareas.get(x % enVuelo));
+        }
+    }
+
+    /**
+     * Decodifica un bloque en memoria.
+     * @param archivo el archivo comprimido.
+     * @param indice el índice de bloques del archivo.
+     * @param bloque el número de bloque, desde 0.
+     * @return los bytes originales del bloque.
+     * @throws IOException si el bloque está dañado.
+     */
+    byte[] decodificarBloque(ArchivoMapeado archivo, IndiceBloques indice, int bloque) throws IOException {
+        byte[] datos = new byte[indice.longitud(bloque)];
+        decodificar(indice.abrir(archivo, bloque), datos, datos.length);
+        return datos;
+    }
+
+    /**
+     * Decodifica el principio de un bloque: lee el tipo de bloque y, si trae, su tabla, y después los bytes pedidos,
+     * de un solo flujo o de los sub-flujos (ver FlujosIntercalados).
+     * @param entrada el archivo comprimido, posicionado al inicio del bloque.
+     * @param datos donde se guardan los bytes originales, desde la posición 0.
+     * @param cantidad cuántos bytes decodificar; a lo sumo el tamaño del bloque.
+     * @throws IOException si el bloque está dañado.
+     */
+    void decodificar(BitInputStream entrada, byte[] datos, int cantidad) throws IOException {
+        int leido = entrada.read();
+        char tipo = SelectorTabla.tipo(leido);
+        if (tipo == SelectorTabla.CRUDO) {
+            SelectorTabla.leerCrudo(entrada, datos, 0, cantidad);
+            return;
+        }
+        TablaDecodificacion tablaBloque;
+        if (tipo == SelectorTabla.NUEVA) {
+            tablaBloque = Encabezado.leerTabla(entrada).decodificador();
+        } else if (tipo == SelectorTabla.ANTERIOR) {
+            tablaBloque = tabla;
+        } else if (predefinida == null) {
+            throw new IOException("Hay un bloque que usa la tabla compartida, pero el encabezado no indica ninguna");
+        } else {
+            tablaBloque = predefinida.decodificador();
+        }
+        if ((leido & SelectorTabla.INTERCALADO) != 0) {
+            FlujosIntercalados.decodificar(tablaBloque, entrada, datos, cantidad);
+        } else {
+            tablaBloque.decodificar(entrada, datos, 0, cantidad);
+        }
+    }
+
+    // Espera a que termine una tarea.
+    private static void esperar(Future<Void> tarea) throws IOException {
+        try {
+            tarea.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpió la descompresión", exception);
+        } catch (ExecutionException exception) {
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+            throw new IOException(exception.getCause());
+        }
+    }
+}
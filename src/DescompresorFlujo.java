@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Descompresión del formato de flujo (ver CompresorFlujo). Los bloques se leen en orden, cada uno con la tabla que
+ * indica su tipo (ver SelectorTabla). Como cada bloque guarda cuántos bytes comprimidos ocupa, los bloques que quedan
+ * antes de la parte pedida se saltan sin decodificarlos; de esos solo se lee la tabla, por si un bloque siguiente usa
+ * la anterior.
+ */
+class DescompresorFlujo {
+    private final int tamBloque;
+    private final TablaCompartida predefinida;
+
+    /**
+     * Constructor de la clase DescompresorFlujo.
+     * @param tamBloque el tamaño máximo de los bloques, según el encabezado general.
+     * @param predefinida la tabla compartida indicada en el encabezado general, o null si no se usó ninguna.
+     */
+    DescompresorFlujo(int tamBloque, TablaCompartida predefinida) {
+        this.tamBloque = tamBloque;
+        this.predefinida = predefinida;
+    }
+
+    /**
+     * Descomprime todos los bloques.
+     * @param entrada el archivo comprimido, posicionado después del encabezado general.
+     * @param salida donde se escriben los bytes originales.
+     * @return la cantidad de bytes escritos.
+     * @throws IOException si el archivo está dañado o no se puede escribir la salida.
+     */
+    long descomprimir(BitInputStream entrada, OutputStream salida) throws IOException {
+        return descomprimir(entrada, 0, Long.MAX_VALUE, salida);
+    }
+
+    /**
+     * Descomprime solo los bytes originales que están en [inicio, fin).
+     * @param entrada el archivo comprimido, posicionado después del encabezado general.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param fin la posición siguiente al último byte que se quiere.
+     * @param salida donde se escriben los bytes originales.
+     * @return la cantidad de bytes escritos; menos de fin - inicio si el archivo se termina antes.
+     * @throws IOException si el archivo está dañado o no se puede escribir la salida.
+     */
+    long descomprimir(BitInputStream entrada, long inicio, long fin, OutputStream salida) throws IOException {
+        byte[] datos = new byte[0];
+        long posicion = 0;
+        long escritos = 0;
+        Encabezado anterior = null;
+        TablaDecodificacion tablaAnterior = null;
+        Encabezado bloque = Encabezado.leerBloque(entrada);
+        while (bloque.tamArchivo > 0 && posicion < fin) {
+            if (bloque.tamArchivo > tamBloque) {
+                throw new IOException("Hay un bloque más grande que el tamaño de bloque del encabezado");
+            }
+            if (bloque.tipoBloque == SelectorTabla.NUEVA) {
+                anterior = bloque;
+                tablaAnterior = null; // se arma solo si se decodifica algún bloque con ella
+            } else if (bloque.tipoBloque == SelectorTabla.ANTERIOR && anterior == null) {
+                throw new IOException("Hay un bloque que usa la tabla anterior, pero no hay ninguna");
+            } else if (bloque.tipoBloque == SelectorTabla.PREDEFINIDA && predefinida == null) {
+                throw new IOException("Hay un bloque que usa la tabla compartida, pero el encabezado no indica ninguna");
+            }
+            if (posicion + bloque.tamArchivo <= inicio) {
+                saltar(entrada, bloque.tamComprimido);
+            } else {
+                int hasta = (int) Math.min(bloque.tamArchivo, fin - posicion);
+                if (datos.length < hasta) {
+                    datos = new byte[hasta];
+                }
+                if (bloque.tipoBloque == SelectorTabla.CRUDO) {
+                    SelectorTabla.leerCrudo(entrada, datos, 0, hasta);
+                } else {
+                    TablaDecodificacion tabla;
+                    if (bloque.tipoBloque == SelectorTabla.PREDEFINIDA) {
+                        tabla = predefinida.decodificador();
+                    } else {
+                        if (tablaAnterior == null) {
+                            tablaAnterior = anterior.decodificador();
+                        }
+                        tabla = tablaAnterior;
+                    }
+                    if (bloque.intercalado) {
+                        FlujosIntercalados.decodificar(tabla, entrada, datos, hasta);
+                    } else {
+                        tabla.decodificar(entrada, datos, 0, hasta);
+                    }
+                }
+                int desde = (int) Math.max(0, inicio - posicion);
+                salida.write(datos, desde, hasta - desde);
+                escritos += hasta - desde;
+                if (hasta < bloque.tamArchivo) {
+                    break;
+                }
+                entrada.alignToByte();
+            }
+            posicion += bloque.tamArchivo;
+            bloque = Encabezado.leerBloque(entrada);
+        }
+        return escritos;
+    }
+
+    // Salta los bytes comprimidos de un bloque.
+    private static void saltar(BitInputStream entrada, long bytes) throws IOException {
+        byte[] descarte = new byte[(int) Math.min(BitInputStream.BUFFER_SIZE, Math.max(bytes, 1))];
+        while (bytes > 0) {
+            int n = entrada.read(descarte, 0, (int) Math.min(descarte.length, bytes));
+            if (n < 0) {
+                throw new IOException("El archivo comprimido está incompleto");
+            }
+            bytes -= n;
+        }
+    }
+}
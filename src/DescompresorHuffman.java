@@ -0,0 +1,174 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Descompresor para usar desde otros programas. Acepta todos los formatos que produce CompresorHuffman. No escribe
+ * mensajes ni termina el proceso: los errores se informan con excepciones. Una misma instancia se puede usar para
+ * descomprimir muchas entradas, incluso desde varios hilos a la vez.
+ *
+ * Igual que CompresorHuffman, está en el paquete sin nombre: solo se puede usar desde código que también esté en el
+ * paquete sin nombre, o copiando las fuentes a un paquete propio.
+ */
+public class DescompresorHuffman {
+    private final TablaCompartida tabla;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un descompresor. Los archivos comprimidos por bloques se descomprimen en paralelo.
+     */
+    public DescompresorHuffman() {
+        this(null);
+    }
+
+    /**
+     * Crea un descompresor que además acepta los archivos comprimidos con una tabla entrenada de antemano.
+     * @param tabla la tabla compartida, o null si no se tiene ninguna.
+     */
+    public DescompresorHuffman(TablaCompartida tabla) {
+        this.tabla = tabla;
+        pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Descomprime un archivo. El nombre del archivo de salida lleva la extensión guardada en el encabezado.
+     * @param origen el archivo comprimido.
+     * @param nombreDestino el nombre del archivo de salida, sin la extensión.
+     * @return el archivo descomprimido que se creó.
+     * @throws IOException si el archivo comprimido no es válido o no se puede escribir la salida.
+     */
+    public File descomprimir(File origen, String nombreDestino) throws IOException {
+        return descomprimir(origen, null, nombreDestino);
+    }
+
+    /**
+     * Descomprime un archivo en el destino indicado, sin importar la extensión guardada en el encabezado.
+     * @param origen el archivo comprimido.
+     * @param destino el archivo de salida.
+     * @throws IOException si el archivo comprimido no es válido o no se puede escribir la salida.
+     */
+    public void descomprimir(File origen, File destino) throws IOException {
+        descomprimir(origen, destino, null);
+    }
+
+    // Descomprime un archivo. Si no se da el destino, se arma con el nombre y la extensión del encabezado.
+    private File descomprimir(File origen, File destino, String nombreDestino) throws IOException {
+        try (ArchivoMapeado archivo = new ArchivoMapeado(origen)) {
+            BitInputStream entrada = new BitInputStream(archivo.flujo());
+            Encabezado encabezado = Encabezado.leerConFirma(entrada);
+            if (destino == null) {
+                destino = new File(encabezado.extension.isEmpty() ? nombreDestino : nombreDestino + "." + encabezado.extension);
+            }
+            if (encabezado.formato == Encabezado.FORMATO_BLOQUES) {
+                IndiceBloques indice = IndiceBloques.leer(archivo);
+                indice.verificar(encabezado.tamArchivo, encabezado.tamBloque);
+                DescompresorBloques bloques = new DescompresorBloques(encabezado, predefinida(tabla, encabezado), pool);
+                try (RandomAccessFile salida = new RandomAccessFile(destino, "rw")) {
+                    salida.setLength(encabezado.tamArchivo);
+                    bloques.descomprimir(archivo, indice, salida.getChannel());
+                }
+            } else {
+                try (OutputStream salida = new FileOutputStream(destino)) {
+                    descomprimir(entrada, encabezado, salida);
+                }
+            }
+            return destino;
+        } catch (BitOutputStream.BitIOException exception) {
+            throw CompresorHuffman.causa(exception);
+        }
+    }
+
+    /**
+     * Descomprime los bytes de un buffer, desde su posición hasta su límite. La posición del buffer no cambia.
+     * @param comprimido los bytes comprimidos, empezando por las letras "huf".
+     * @param salida donde se escriben los bytes originales. No se cierra.
+     * @return la cantidad de bytes originales escritos.
+     * @throws IOException si los datos no son válidos o no se puede escribir la salida.
+     */
+    public long descomprimir(ByteBuffer comprimido, OutputStream salida) throws IOException {
+        return descomprimir(new FlujoBuffer(comprimido), salida);
+    }
+
+    /**
+     * Descomprime un flujo de principio a fin, en una sola pasada. Los archivos por bloques se decodifican bloque por
+     * bloque, en orden, sin usar el índice.
+     * @param entrada los bytes comprimidos, empezando por las letras "huf".
+     * @param salida donde se escriben los bytes originales. No se cierra.
+     * @return la cantidad de bytes originales escritos.
+     * @throws IOException si los datos no son válidos o no se puede leer la entrada o escribir la salida.
+     */
+    public long descomprimir(InputStream entrada, OutputStream salida) throws IOException {
+        BitInputStream bits = new BitInputStream(entrada);
+        try {
+            return descomprimir(bits, Encabezado.leerConFirma(bits), salida);
+        } catch (BitOutputStream.BitIOException exception) {
+            throw CompresorHuffman.causa(exception);
+        }
+    }
+
+    // Decodifica los datos que siguen al encabezado, según su formato.
+    private long descomprimir(BitInputStream entrada, Encabezado encabezado, OutputStream salida) throws IOException {
+        try {
+            switch (encabezado.formato) {
+                case Encabezado.FORMATO_FLUJO:
+                    return new DescompresorFlujo(encabezado.tamBloque, predefinida(tabla, encabezado)).descomprimir(entrada, salida);
+                case Encabezado.FORMATO_COMPARTIDO:
+                    return tablaCompartida(tabla, encabezado).decodificar(entrada, 0, Long.MAX_VALUE, salida);
+                case Encabezado.FORMATO_CONTEXTO:
+                    ModeloContexto.leer(entrada).decodificar(entrada, 0, encabezado.tamArchivo, salida);
+                    return encabezado.tamArchivo;
+                case Encabezado.FORMATO_ADAPTATIVO:
+                    return new HuffmanAdaptativo().descomprimir(entrada, 0, Long.MAX_VALUE, salida);
+                case Encabezado.FORMATO_BLOQUES:
+                    DescompresorBloques bloques = new DescompresorBloques(encabezado, predefinida(tabla, encabezado), pool);
+                    byte[] datos = new byte[(int) Math.min(encabezado.tamBloque, encabezado.tamArchivo)];
+                    for (long hechos = 0; hechos < encabezado.tamArchivo; ) {
+                        int cantidad = (int) Math.min(encabezado.tamBloque, encabezado.tamArchivo - hechos);
+                        bloques.decodificar(entrada, datos, cantidad);
+                        salida.write(datos, 0, cantidad);
+                        entrada.alignToByte(); // cada bloque empieza en un byte nuevo
+                        hechos += cantidad;
+                    }
+                    return encabezado.tamArchivo;
+                default:
+                    encabezado.decodificador().decodificar(entrada, salida, encabezado.tamArchivo);
+                    return encabezado.tamArchivo;
+            }
+        } catch (BitOutputStream.BitIOException exception) {
+            throw CompresorHuffman.causa(exception);
+        }
+    }
+
+    /**
+     * Revisa que la tabla compartida sea la misma con que se comprimió el archivo.
+     * @param tabla la tabla que se tiene, o null.
+     * @param encabezado el encabezado de un archivo del formato compartido.
+     * @return la tabla.
+     * @throws IOException si no se tiene la tabla o es otra.
+     */
+    static TablaCompartida tablaCompartida(TablaCompartida tabla, Encabezado encabezado) throws IOException {
+        if (tabla == null) {
+            throw new IOException("El archivo se comprimió con una tabla compartida; hace falta indicarla");
+        }
+        if (tabla.id() != encabezado.idTabla) {
+            throw new IOException("El archivo se comprimió con otra tabla compartida");
+        }
+        return tabla;
+    }
+
+    /**
+     * Devuelve la tabla compartida que pueden usar los bloques de los formatos por bloques y de flujo.
+     * @param tabla la tabla que se tiene, o null.
+     * @param encabezado el encabezado general del archivo.
+     * @return la tabla, o null si el archivo no se comprimió con ninguna.
+     * @throws IOException si el archivo se comprimió con una tabla y no se tiene o es otra.
+     */
+    static TablaCompartida predefinida(TablaCompartida tabla, Encabezado encabezado) throws IOException {
+        return encabezado.idTabla == 0 ? null : tablaCompartida(tabla, encabezado);
+    }
+}
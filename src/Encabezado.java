@@ -0,0 +1,416 @@
+import java.io.IOException;
+
+/**
+ * Encabezado de un archivo comprimido. Después de las letras "huf" se guarda, en este orden:
+ * la extensión del archivo original (su largo y sus caracteres), el formato (un byte), la cantidad de caracteres
+ * distintos, el tamaño del archivo original y, en el formato por bloques, el tamaño de cada bloque y el identificador
+ * de la tabla compartida, o 0 si no se usó ninguna, la longitud máxima de los códigos (un byte) y por último la tabla
+ * de longitudes de los códigos canónicos.
+ * Los números se guardan en binario, de 7 en 7 bits empezando por los menos significativos: cada byte lleva 7 bits del
+ * número y el bit más alto encendido si falta algún byte (ver escribirNumero). Así un número ocupa pocos bytes si es
+ * pequeño, y los tamaños pueden llegar a 2^63 - 1.
+ * En el formato de flujo no se conocen el tamaño ni las frecuencias al empezar, así que después del formato solo van el
+ * tamaño máximo de los bloques y el identificador de la tabla compartida (0 si no se usó ninguna), y cada bloque lleva
+ * su propio encabezado (ver escribirBloque). En el formato adaptativo
+ * no va nada después del formato: los códigos se van armando al descomprimir (ver HuffmanAdaptativo). En el formato
+ * compartido va solo el identificador de la tabla entrenada con que se comprimió (ver TablaCompartida). En el formato
+ * de contexto va solo el tamaño del archivo original, y después las tablas de cada contexto (ver ModeloContexto).
+ */
+class Encabezado {
+    static final String FIRMA = "huf";
+    static final char FORMATO_SIMPLE = 'S';
+    static final char FORMATO_BLOQUES = 'B';
+    static final char FORMATO_FLUJO = 'F';
+    static final char FORMATO_ADAPTATIVO = 'A';
+    static final char FORMATO_COMPARTIDO = 'T';
+    static final char FORMATO_CONTEXTO = 'C';
+
+    private static final int LARGO_EXTENSION = 4096;
+
+    String extension;
+    char formato;
+    long tamArchivo;
+    int tamBloque;
+    long tamComprimido; // en el formato de flujo, los bytes comprimidos de un bloque
+    long idTabla; // en los formatos compartido, de flujo y por bloques, el identificador de la tabla compartida
+    char tipoBloque; // en el formato de flujo, cómo se codificó el bloque (ver SelectorTabla)
+    boolean intercalado; // en el formato de flujo, si los códigos del bloque van en sub-flujos (ver FlujosIntercalados)
+    int longitudMaxima;
+    int[] longitudes;
+    int simboloUnico;
+
+    /**
+     * Constructor de la clase Encabezado. Se crea un encabezado de formato simple, sin ningún símbolo.
+     */
+    Encabezado() {
+        extension = "";
+        formato = FORMATO_SIMPLE;
+        tamArchivo = 0;
+        tamBloque = 0;
+        tamComprimido = 0;
+        idTabla = 0;
+        tipoBloque = SelectorTabla.NUEVA;
+        intercalado = false;
+        longitudMaxima = LongitudLimitada.LONGITUD_MAXIMA;
+        longitudes = new int[CodigoCanonico.SIMBOLOS];
+        simboloUnico = -1;
+    }
+
+    /**
+     * Cuenta los caracteres distintos que tienen código.
+     * @return la cantidad de caracteres distintos del archivo original.
+     */
+    int cantidadCaracteres() {
+        if (simboloUnico != -1) {
+            return 1;
+        }
+        int cantidad = 0;
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            if (longitudes[x] > 0) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Arma las tablas de decodificación del código canónico de las longitudes. Si el archivo tiene un único caracter,
+     * las tablas tienen solo ese caracter con el código vacío.
+     * @return las tablas de decodificación.
+     */
+    TablaDecodificacion decodificador() {
+        if (simboloUnico != -1) {
+            return new TablaDecodificacion(new CodigoCanonico(new int[CodigoCanonico.SIMBOLOS]), simboloUnico);
+        }
+        return new TablaDecodificacion(new CodigoCanonico(longitudes), -1);
+    }
+
+    /**
+     * Escribe las letras "huf" y después el encabezado.
+     * @param salida donde se escribe.
+     */
+    void escribirConFirma(BitOutputStream salida) {
+        for (int x = 0; x < FIRMA.length(); x++) {
+            salida.write(FIRMA.charAt(x));
+        }
+        escribir(salida);
+    }
+
+    /**
+     * Escribe el encabezado, sin las letras "huf".
+     * @param salida donde se escribe.
+     */
+    void escribir(BitOutputStream salida) {
+        escribirNumero(salida, extension.length()); //Extension del archivo original
+        for (int x = 0; x < extension.length(); x++) {
+            salida.write(extension.charAt(x));
+        }
+        salida.write(formato);
+        if (formato == FORMATO_FLUJO) {
+            escribirNumero(salida, tamBloque);
+            escribirNumero(salida, idTabla);
+            return;
+        }
+        if (formato == FORMATO_ADAPTATIVO) {
+            return;
+        }
+        if (formato == FORMATO_COMPARTIDO) {
+            escribirNumero(salida, idTabla);
+            return;
+        }
+        if (formato == FORMATO_CONTEXTO) {
+            escribirNumero(salida, tamArchivo);
+            return;
+        }
+        int cantidad = cantidadCaracteres();
+        escribirNumero(salida, cantidad); // cantidad de caracteres diferentes en el archivo
+        escribirNumero(salida, tamArchivo); // tamaño del archivo original
+        if (formato == FORMATO_BLOQUES) {
+            escribirNumero(salida, tamBloque);
+            escribirNumero(salida, idTabla);
+        }
+        salida.write(longitudMaxima); // longitud máxima de los codigos
+        escribirCodigos(salida, cantidad);
+    }
+
+    /**
+     * Escribe el encabezado de un bloque del formato de flujo: el tamaño original del bloque y los bytes comprimidos,
+     * el tipo de bloque (un byte, con la marca SelectorTabla.INTERCALADO si corresponde) y, si el bloque trae una tabla
+     * nueva, la tabla (ver escribirTabla). Un bloque de tamaño 0 marca el final del archivo y no lleva nada más.
+     * @param salida donde se escribe.
+     */
+    void escribirBloque(BitOutputStream salida) {
+        escribirNumero(salida, tamArchivo);
+        if (tamArchivo == 0) {
+            return;
+        }
+        escribirNumero(salida, tamComprimido);
+        salida.write(intercalado ? tipoBloque | SelectorTabla.INTERCALADO : tipoBloque);
+        if (tipoBloque == SelectorTabla.NUEVA) {
+            escribirTabla(salida);
+        }
+    }
+
+    /**
+     * Escribe solo la tabla: la cantidad de caracteres distintos, la longitud
+     * máxima de los códigos (un byte) y las longitudes de los códigos.
+     * @param salida donde se escribe.
+     */
+    void escribirTabla(BitOutputStream salida) {
+        int cantidad = cantidadCaracteres();
+        escribirNumero(salida, cantidad);
+        salida.write(longitudMaxima);
+        escribirCodigos(salida, cantidad);
+    }
+
+    /**
+     * Calcula cuántos bytes ocupa la tabla al escribirla con escribirTabla.
+     * @return el tamaño de la tabla en bytes.
+     */
+    int tamanoTabla() {
+        int cantidad = cantidadCaracteres();
+        int codigos = simboloUnico != -1 ? 2 : cantidad < CodigoCanonico.LIMITE_PARES ? 2 * cantidad : CodigoCanonico.SIMBOLOS;
+        return tamanoNumero(cantidad) + 1 + codigos;
+    }
+
+    // Escribe la tabla de longitudes de los códigos.
+    private void escribirCodigos(BitOutputStream salida, int cantidad) {
+        if (simboloUnico != -1) { // un unico caracter, con el codigo vacio
+            salida.write(simboloUnico);
+            salida.write(0);
+        } else if (cantidad < CodigoCanonico.LIMITE_PARES) { // pares (caracter, longitud del codigo)
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                if (longitudes[x] > 0) {
+                    salida.write(x);
+                    salida.write(longitudes[x]);
+                }
+            }
+        } else { // la longitud del codigo de cada uno de los 256 caracteres
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                salida.write(longitudes[x]);
+            }
+        }
+    }
+
+    /**
+     * Lee las letras "huf" y después el encabezado.
+     * @param entrada el archivo comprimido, desde el principio.
+     * @return el encabezado leído.
+     * @throws IOException si el archivo no empieza con "huf" o el encabezado no es válido.
+     */
+    static Encabezado leerConFirma(BitInputStream entrada) throws IOException {
+        for (int x = 0; x < FIRMA.length(); x++) {
+            if (entrada.read() != FIRMA.charAt(x)) {
+                throw new IOException("El archivo no está comprimido");
+            }
+        }
+        return leer(entrada);
+    }
+
+    /**
+     * Lee un encabezado. Las letras "huf" ya tienen que haber sido leídas.
+     * @param entrada el archivo comprimido.
+     * @return el encabezado leído.
+     * @throws IOException si el encabezado está incompleto o no tiene un formato válido.
+     */
+    static Encabezado leer(BitInputStream entrada) throws IOException {
+        Encabezado encabezado = new Encabezado();
+        encabezado.extension = leerHilera(entrada);
+        encabezado.formato = (char) leerByte(entrada);
+        if (encabezado.formato != FORMATO_SIMPLE && encabezado.formato != FORMATO_BLOQUES
+                && encabezado.formato != FORMATO_FLUJO && encabezado.formato != FORMATO_ADAPTATIVO
+                && encabezado.formato != FORMATO_COMPARTIDO && encabezado.formato != FORMATO_CONTEXTO) {
+            throw new IOException("Formato desconocido: " + encabezado.formato);
+        }
+        if (encabezado.formato == FORMATO_FLUJO) {
+            encabezado.tamBloque = leerTamBloque(entrada);
+            encabezado.idTabla = leerNumero(entrada);
+            return encabezado;
+        }
+        if (encabezado.formato == FORMATO_ADAPTATIVO) {
+            return encabezado;
+        }
+        if (encabezado.formato == FORMATO_COMPARTIDO) {
+            encabezado.idTabla = leerNumero(entrada);
+            return encabezado;
+        }
+        if (encabezado.formato == FORMATO_CONTEXTO) {
+            encabezado.tamArchivo = leerNumero(entrada);
+            return encabezado;
+        }
+        long cantidad = leerNumero(entrada);
+        encabezado.tamArchivo = leerNumero(entrada);
+        if (encabezado.formato == FORMATO_BLOQUES) {
+            encabezado.tamBloque = leerTamBloque(entrada);
+            encabezado.idTabla = leerNumero(entrada);
+        }
+        encabezado.longitudMaxima = leerLongitudMaxima(entrada);
+        leerCodigos(entrada, encabezado, cantidad);
+        return encabezado;
+    }
+
+    /**
+     * Lee el encabezado de un bloque del formato de flujo.
+     * @param entrada el archivo comprimido, posicionado al inicio de un bloque.
+     * @return el encabezado del bloque; si tamArchivo es 0 es el final del archivo.
+     * @throws IOException si el encabezado está incompleto o no tiene un formato válido.
+     */
+    static Encabezado leerBloque(BitInputStream entrada) throws IOException {
+        Encabezado encabezado = new Encabezado();
+        encabezado.formato = FORMATO_FLUJO;
+        encabezado.tamArchivo = leerNumero(entrada);
+        if (encabezado.tamArchivo == 0) {
+            return encabezado;
+        }
+        encabezado.tamComprimido = leerNumero(entrada);
+        int leido = leerByte(entrada);
+        encabezado.tipoBloque = SelectorTabla.tipo(leido);
+        encabezado.intercalado = (leido & SelectorTabla.INTERCALADO) != 0;
+        if (encabezado.tipoBloque == SelectorTabla.NUEVA) {
+            leerTabla(entrada, encabezado);
+        }
+        return encabezado;
+    }
+
+    /**
+     * Lee una tabla escrita con escribirTabla.
+     * @param entrada el archivo comprimido.
+     * @return un encabezado que tiene solo la tabla.
+     * @throws IOException si la tabla está incompleta o no es válida.
+     */
+    static Encabezado leerTabla(BitInputStream entrada) throws IOException {
+        Encabezado encabezado = new Encabezado();
+        leerTabla(entrada, encabezado);
+        return encabezado;
+    }
+
+    // Lee una tabla escrita con escribirTabla y la guarda en el encabezado.
+    private static void leerTabla(BitInputStream entrada, Encabezado encabezado) throws IOException {
+        long cantidad = leerNumero(entrada);
+        encabezado.longitudMaxima = leerLongitudMaxima(entrada);
+        leerCodigos(entrada, encabezado, cantidad);
+    }
+
+    // Lee la tabla de longitudes de los códigos.
+    private static void leerCodigos(BitInputStream entrada, Encabezado encabezado, long cantidad) throws IOException {
+        if (cantidad < 1 || cantidad > CodigoCanonico.SIMBOLOS) {
+            throw new IOException("Cantidad de caracteres inválida");
+        }
+
+        if (cantidad < CodigoCanonico.LIMITE_PARES) {
+            for (int x = 0; x < cantidad; x++) {
+                int caracter = leerByte(entrada);
+                encabezado.longitudes[caracter] = leerByte(entrada);
+                if (cantidad == 1) {
+                    encabezado.simboloUnico = caracter;
+                    encabezado.longitudes[caracter] = 0;
+                }
+            }
+        } else {
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                encabezado.longitudes[x] = leerByte(entrada);
+            }
+        }
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            if (encabezado.longitudes[x] > encabezado.longitudMaxima) {
+                throw new IOException("Hay códigos más largos que el máximo del encabezado");
+            }
+        }
+        if (encabezado.simboloUnico == -1 && !CodigoCanonico.valido(encabezado.longitudes)) {
+            throw new IOException("Tabla de códigos inválida");
+        }
+    }
+
+    // Lee la longitud máxima de los códigos, que tiene que ser una de las que acepta el compresor: los decodificadores
+    // leen de una vez hasta esa cantidad de bits.
+    private static int leerLongitudMaxima(BitInputStream entrada) throws IOException {
+        int longitudMaxima = leerByte(entrada);
+        if (longitudMaxima < LongitudLimitada.LONGITUD_MINIMA || longitudMaxima > LongitudLimitada.LONGITUD_MAXIMA) {
+            throw new IOException("Longitud máxima de los códigos inválida: " + longitudMaxima);
+        }
+        return longitudMaxima;
+    }
+
+    // Lee el tamaño de los bloques.
+    private static int leerTamBloque(BitInputStream entrada) throws IOException {
+        long tamBloque = leerNumero(entrada);
+        if (tamBloque <= 0 || tamBloque > Integer.MAX_VALUE) {
+            throw new IOException("Tamaño de bloque inválido");
+        }
+        return (int) tamBloque;
+    }
+
+    /**
+     * Escribe un número no negativo de 7 en 7 bits, empezando por los menos significativos. Cada byte lleva el bit más
+     * alto encendido si después viene otro.
+     * @param salida donde se escribe.
+     * @param numero el número; no puede ser negativo.
+     */
+    static void escribirNumero(BitOutputStream salida, long numero) {
+        while (numero >= 0x80) {
+            salida.write((int) (numero & 0x7F) | 0x80);
+            numero >>>= 7;
+        }
+        salida.write((int) numero);
+    }
+
+    /**
+     * Lee un número escrito con escribirNumero.
+     * @param entrada el archivo comprimido.
+     * @return el número leído; nunca es negativo.
+     * @throws IOException si el archivo se termina antes o el número pasa de Long.MAX_VALUE.
+     */
+    static long leerNumero(BitInputStream entrada) throws IOException {
+        long numero = 0;
+        // a lo sumo 9 bytes de 7 bits: 63 bits, así que el bit de signo nunca se toca; un décimo byte ya no cabe
+        for (int desplazamiento = 0; desplazamiento < 63; desplazamiento += 7) {
+            int bytes = leerByte(entrada);
+            numero |= (long) (bytes & 0x7F) << desplazamiento;
+            if ((bytes & 0x80) == 0) {
+                return numero;
+            }
+        }
+        throw new IOException("Número inválido en el encabezado");
+    }
+
+    /**
+     * Calcula cuántos bytes ocupa un número al escribirlo con escribirNumero.
+     * @param numero el número; no puede ser negativo.
+     * @return la cantidad de bytes.
+     */
+    static int tamanoNumero(long numero) {
+        int bytes = 1;
+        while (numero >= 0x80) {
+            numero >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    // Lee la extensión: su largo y sus caracteres.
+    private static String leerHilera(BitInputStream entrada) throws IOException {
+        long largo = leerNumero(entrada);
+        if (largo > LARGO_EXTENSION) {
+            throw new IOException("Extensión inválida en el encabezado");
+        }
+        StringBuilder hilera = new StringBuilder();
+        for (int x = 0; x < largo; x++) {
+            hilera.append((char) leerByte(entrada));
+        }
+        return hilera.toString();
+    }
+
+    /**
+     * Lee un byte, fallando si el archivo se terminó.
+     * @param entrada el archivo comprimido.
+     * @return el byte leído.
+     * @throws IOException si el archivo se terminó.
+     */
+    static int leerByte(BitInputStream entrada) throws IOException {
+        int bytes = entrada.read();
+        if (bytes < 0) {
+            throw new IOException("El encabezado está incompleto");
+        }
+        return bytes;
+    }
+}
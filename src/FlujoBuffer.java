@@ -0,0 +1,44 @@
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Flujo de entrada que lee los bytes de un ByteBuffer, desde su posición hasta su límite. Se lee sobre una copia del
+ * buffer, así que la posición del original no cambia.
+ */
+class FlujoBuffer extends InputStream {
+    private final ByteBuffer buffer;
+
+    /**
+     * Constructor de la clase FlujoBuffer.
+     * @param buffer los bytes que se van a leer.
+     */
+    FlujoBuffer(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int inicio, int cantidad) {
+        if (cantidad == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        cantidad = Math.min(cantidad, buffer.remaining());
+        buffer.get(bytes, inicio, cantidad);
+        return cantidad;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
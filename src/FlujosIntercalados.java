@@ -0,0 +1,85 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificación de un bloque en FLUJOS sub-flujos independientes. El bloque se divide en FLUJOS segmentos seguidos del
+ * mismo tamaño (el último puede ser más chico) y cada segmento se codifica en su propio flujo de bits, que empieza en
+ * un byte nuevo. Al decodificar, cada símbolo de un flujo depende del anterior del mismo flujo (hay que conocer la
+ * longitud de su código para saber dónde empieza el siguiente), pero no de los otros flujos, así que
+ * TablaDecodificacion avanza los FLUJOS cursores en cada vuelta y el procesador puede resolver las FLUJOS búsquedas
+ * a la vez.
+ *
+ * Formato: el tamaño de los segmentos y el tamaño en bytes de cada flujo, como números (ver
+ * Encabezado.escribirNumero), y después los flujos uno tras otro.
+ */
+class FlujosIntercalados {
+    static final int FLUJOS = 4;
+
+    /**
+     * Constructor privado; la clase solo tiene métodos estáticos.
+     */
+    private FlujosIntercalados() {
+    }
+
+    /**
+     * Codifica los bytes que le quedan al buffer en FLUJOS sub-flujos. La posición del buffer no se modifica.
+     * @param codificador el codificador de la tabla del bloque.
+     * @param datos los bytes originales del bloque.
+     * @param salida donde se escriben los tamaños y los flujos; el primer byte empieza en un byte nuevo.
+     */
+    static void codificar(Codificador codificador, ByteBuffer datos, BitOutputStream salida) {
+        int cantidad = datos.remaining();
+        int segmento = (cantidad + FLUJOS - 1) / FLUJOS;
+        ByteArrayOutputStream[] flujos = new ByteArrayOutputStream[FLUJOS];
+        for (int k = 0; k < FLUJOS; k++) {
+            int inicio = Math.min(cantidad, k * segmento);
+            ByteBuffer parte = datos.duplicate();
+            parte.position(datos.position() + inicio);
+            parte.limit(datos.position() + Math.min(cantidad, inicio + segmento));
+            flujos[k] = new ByteArrayOutputStream(parte.remaining() / 2 + 16);
+            BitOutputStream bits = new BitOutputStream(flujos[k]);
+            codificador.codificar(parte, bits);
+            bits.close();
+        }
+        Encabezado.escribirNumero(salida, segmento);
+        for (ByteArrayOutputStream flujo : flujos) {
+            Encabezado.escribirNumero(salida, flujo.size());
+        }
+        for (ByteArrayOutputStream flujo : flujos) {
+            byte[] bytes = flujo.toByteArray();
+            salida.write(bytes, 0, bytes.length);
+        }
+    }
+
+    /**
+     * Decodifica los primeros 'cantidad' bytes de un bloque codificado con codificar. Se leen todos los flujos, aunque
+     * se pida solo una parte del bloque, para que la entrada quede al final del bloque.
+     * @param tabla las tablas de decodificación de la tabla del bloque.
+     * @param entrada el archivo comprimido, posicionado en los tamaños de los flujos.
+     * @param destino donde se guardan los bytes originales, desde la posición 0.
+     * @param cantidad cuántos bytes decodificar; a lo sumo el tamaño del bloque.
+     * @throws IOException si el bloque está dañado o incompleto.
+     */
+    static void decodificar(TablaDecodificacion tabla, BitInputStream entrada, byte[] destino, int cantidad) throws IOException {
+        long segmento = Encabezado.leerNumero(entrada);
+        if (segmento > Integer.MAX_VALUE || segmento * FLUJOS < cantidad) {
+            throw new IOException("El archivo comprimido está dañado: los flujos no cubren el bloque");
+        }
+        int[] limites = new int[FLUJOS + 1];
+        long total = 0;
+        for (int k = 0; k < FLUJOS; k++) {
+            long tamano = Encabezado.leerNumero(entrada);
+            total += tamano;
+            if (tamano > segmento * LongitudLimitada.LONGITUD_MAXIMA / 8 + 8 || total > Integer.MAX_VALUE - Long.BYTES) {
+                throw new IOException("El archivo comprimido está dañado: el tamaño de un flujo no es válido");
+            }
+            limites[k + 1] = (int) total;
+        }
+        byte[] comprimido = new byte[(int) total + Long.BYTES]; // el relleno deja leer 8 bytes desde cualquier flujo
+        if (total > 0 && entrada.read(comprimido, 0, (int) total) != total) {
+            throw new IOException("El archivo comprimido está incompleto");
+        }
+        tabla.decodificar(comprimido, limites, destino, (int) segmento, cantidad);
+    }
+}
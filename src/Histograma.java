@@ -0,0 +1,203 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Cuenta la frecuencia de aparición de cada byte. Las frecuencias se guardan en un arreglo primitivo indexado por el
+ * byte, por lo que cada incremento es un acceso directo, sin búsquedas ni objetos intermedios. Los datos se pueden
+ * agregar por bloques o leyendo un flujo completo, y una misma instancia se puede reutilizar con reiniciar().
+ *
+ * Al contar se usan FRANJAS sub-histogramas intercalados (el byte x va al sub-histograma x % FRANJAS) que se suman al
+ * final: en datos con muchos bytes repetidos, los incrementos consecutivos caen en contadores distintos y no tienen
+ * que esperar a que termine el anterior. Las entradas grandes se pueden contar en paralelo con
+ * agregar(ByteBuffer, ForkJoinPool).
+ */
+class Histograma {
+    static final int TAMANO_BLOQUE = 1 << 16;
+    static final int FRANJAS = 4;
+    static final int TAMANO_PARALELO = 1 << 22;
+
+    private final long[] frecuencias;
+    private long total;
+
+    /**
+     * Constructor de la clase Histograma. Inicialmente todas las frecuencias están en 0.
+     */
+    Histograma() {
+        frecuencias = new long[CodigoCanonico.SIMBOLOS];
+        total = 0;
+    }
+
+    /**
+     * Cuenta los bytes de un bloque.
+     * @param bloque el arreglo con los datos.
+     * @param inicio la posición del primer byte a contar.
+     * @param cantidad cuántos bytes contar.
+     */
+    void agregar(byte[] bloque, int inicio, int cantidad) {
+        long[] f = frecuencias;
+        int fin = inicio + cantidad;
+        if (cantidad < CodigoCanonico.SIMBOLOS * FRANJAS) { // no vale la pena sumar las franjas
+            for (int x = inicio; x < fin; x++) {
+                f[bloque[x] & 0xFF]++;
+            }
+            total += cantidad;
+            return;
+        }
+        // Cada franja recibe a lo sumo cantidad / FRANJAS + 1 bytes, así que los contadores int no se desbordan.
+        int[] franjas = new int[CodigoCanonico.SIMBOLOS * FRANJAS];
+        int x = inicio;
+        for (int finFranjas = fin - FRANJAS + 1; x < finFranjas; x += FRANJAS) {
+            franjas[bloque[x] & 0xFF]++;
+            franjas[0x100 | (bloque[x + 1] & 0xFF)]++;
+            franjas[0x200 | (bloque[x + 2] & 0xFF)]++;
+            franjas[0x300 | (bloque[x + 3] & 0xFF)]++;
+        }
+        for (; x < fin; x++) {
+            franjas[bloque[x] & 0xFF]++;
+        }
+        for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+            f[s] += (long) franjas[s] + franjas[0x100 | s] + franjas[0x200 | s] + franjas[0x300 | s];
+        }
+        total += cantidad;
+    }
+
+    /**
+     * Lee el flujo completo por bloques de TAMANO_BLOQUE bytes y cuenta todos sus bytes.
+     * @param entrada el flujo que queremos contar. No se cierra.
+     * @throws IOException si no se puede leer el flujo.
+     */
+    void agregar(InputStream entrada) throws IOException {
+        byte[] bloque = new byte[TAMANO_BLOQUE];
+        int leidos;
+        while ((leidos = entrada.read(bloque, 0, bloque.length)) != -1) {
+            agregar(bloque, 0, leidos);
+        }
+    }
+
+    /**
+     * Cuenta los bytes que le quedan al buffer (desde su posición hasta su límite), copiándolos por bloques de
+     * TAMANO_BLOQUE bytes. La posición del buffer no se modifica.
+     * @param datos el buffer que queremos contar; por ejemplo, una ventana de un archivo mapeado.
+     */
+    void agregar(ByteBuffer datos) {
+        ByteBuffer copia = datos.duplicate();
+        byte[] bloque = new byte[Math.min(TAMANO_BLOQUE, copia.remaining())];
+        while (copia.hasRemaining()) {
+            int cantidad = Math.min(bloque.length, copia.remaining());
+            copia.get(bloque, 0, cantidad);
+            agregar(bloque, 0, cantidad);
+        }
+    }
+
+    /**
+     * Cuenta los bytes que le quedan al buffer repartiéndolos entre los hilos de un pool: el buffer se divide en trozos
+     * de a lo sumo TAMANO_PARALELO bytes, cada tarea cuenta el suyo en un histograma propio y los resultados se suman
+     * al volver. Así la primera pasada sobre un archivo grande queda limitada por la lectura del disco y no por un solo
+     * núcleo. Si el buffer es chico se cuenta en este mismo hilo. La posición del buffer no se modifica.
+     * @param datos el buffer que queremos contar; por ejemplo, una ventana de un archivo mapeado.
+     * @param pool los hilos en los que se cuenta.
+     */
+    void agregar(ByteBuffer datos, ForkJoinPool pool) {
+        if (datos.remaining() <= TAMANO_PARALELO || pool.getParallelism() == 1) {
+            agregar(datos);
+            return;
+        }
+        long[] parcial = pool.invoke(new Conteo(datos, datos.position(), datos.limit()));
+        for (int x = 0; x < frecuencias.length; x++) {
+            frecuencias[x] += parcial[x];
+        }
+        total += datos.remaining();
+    }
+
+    /**
+     * Suma a la frecuencia de un símbolo, por ejemplo para juntar frecuencias contadas por separado.
+     * @param simbolo el símbolo (0 a 255).
+     * @param cantidad cuántas veces más apareció.
+     */
+    void agregar(int simbolo, long cantidad) {
+        frecuencias[simbolo] += cantidad;
+        total += cantidad;
+    }
+
+    /**
+     * Devuelve la frecuencia de un símbolo.
+     * @param simbolo el símbolo (0 a 255).
+     * @return cuántas veces apareció.
+     */
+    long frecuencia(int simbolo) {
+        return frecuencias[simbolo];
+    }
+
+    /**
+     * Devuelve la cantidad total de bytes contados.
+     * @return el total.
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Cuenta los símbolos que aparecieron al menos una vez.
+     * @return la cantidad de símbolos distintos.
+     */
+    int simbolosDistintos() {
+        int cantidad = 0;
+        for (int x = 0; x < frecuencias.length; x++) {
+            if (frecuencias[x] != 0) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Vuelve a poner todas las frecuencias en 0, para reutilizar la instancia.
+     */
+    void reiniciar() {
+        for (int x = 0; x < frecuencias.length; x++) {
+            frecuencias[x] = 0;
+        }
+        total = 0;
+    }
+
+    /**
+     * Tarea que cuenta una parte de un buffer. Si la parte es más grande que TAMANO_PARALELO la divide en dos mitades;
+     * si no, la cuenta en un histograma propio. Devuelve las frecuencias de su parte.
+     */
+    private static class Conteo extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final ByteBuffer datos;
+        private final int inicio;
+        private final int fin;
+
+        Conteo(ByteBuffer datos, int inicio, int fin) {
+            this.datos = datos;
+            this.inicio = inicio;
+            this.fin = fin;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (fin - inicio <= TAMANO_PARALELO) {
+                ByteBuffer parte = datos.duplicate();
+                parte.limit(fin).position(inicio);
+                Histograma histograma = new Histograma();
+                histograma.agregar(parte);
+                return histograma.frecuencias;
+            }
+            int medio = inicio + (fin - inicio) / 2;
+            Conteo derecha = new Conteo(datos, medio, fin);
+            derecha.fork();
+            long[] izquierda = new Conteo(datos, inicio, medio).compute();
+            long[] otra = derecha.join();
+            for (int x = 0; x < izquierda.length; x++) {
+                izquierda[x] += otra[x];
+            }
+            return izquierda;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Cuenta la frecuencia de cada byte según el byte que lo precede (su contexto). Las frecuencias se guardan en un solo
+ * arreglo primitivo de 256 x 256, indexado por el contexto y el byte. Antes del primer byte se toma como contexto el
+ * byte 0. Los datos se pueden agregar por partes; el último byte de una parte es el contexto del primero de la
+ * siguiente.
+ */
+class HistogramaContexto {
+    private final long[] frecuencias;
+    private final long[] totales;
+    private int anterior;
+
+    /**
+     * Constructor de la clase HistogramaContexto. Inicialmente todas las frecuencias están en 0.
+     */
+    HistogramaContexto() {
+        frecuencias = new long[CodigoCanonico.SIMBOLOS * CodigoCanonico.SIMBOLOS];
+        totales = new long[CodigoCanonico.SIMBOLOS];
+        anterior = 0;
+    }
+
+    /**
+     * Cuenta los bytes de un bloque.
+     * @param bloque el arreglo con los datos.
+     * @param inicio la posición del primer byte a contar.
+     * @param cantidad cuántos bytes contar.
+     */
+    void agregar(byte[] bloque, int inicio, int cantidad) {
+        long[] f = frecuencias;
+        long[] t = totales;
+        int contexto = anterior;
+        int fin = inicio + cantidad;
+        for (int x = inicio; x < fin; x++) {
+            int simbolo = bloque[x] & 0xFF;
+            f[(contexto << 8) | simbolo]++;
+            t[contexto]++;
+            contexto = simbolo;
+        }
+        anterior = contexto;
+    }
+
+    /**
+     * Cuenta los bytes que le quedan al buffer, copiándolos por bloques de Histograma.TAMANO_BLOQUE bytes. La posición
+     * del buffer no se modifica.
+     * @param datos el buffer que queremos contar; por ejemplo, una ventana de un archivo mapeado.
+     */
+    void agregar(ByteBuffer datos) {
+        ByteBuffer copia = datos.duplicate();
+        byte[] bloque = new byte[Math.min(Histograma.TAMANO_BLOQUE, copia.remaining())];
+        while (copia.hasRemaining()) {
+            int cantidad = Math.min(bloque.length, copia.remaining());
+            copia.get(bloque, 0, cantidad);
+            agregar(bloque, 0, cantidad);
+        }
+    }
+
+    /**
+     * Devuelve cuántas veces apareció un byte después de otro.
+     * @param contexto el byte anterior (0 a 255).
+     * @param simbolo el byte (0 a 255).
+     * @return la frecuencia.
+     */
+    long frecuencia(int contexto, int simbolo) {
+        return frecuencias[(contexto << 8) | simbolo];
+    }
+
+    /**
+     * Devuelve cuántos bytes aparecieron después de un byte.
+     * @param contexto el byte anterior (0 a 255).
+     * @return la cantidad de bytes con ese contexto.
+     */
+    long total(int contexto) {
+        return totales[contexto];
+    }
+}
@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Huffman adaptativo (algoritmo FGK). El árbol empieza con un solo nodo, el NYT ("aún no transmitido"), y se
+ * actualiza después de cada símbolo tanto al comprimir como al descomprimir, así que no hace falta guardar ninguna
+ * tabla ni recorrer los datos dos veces. Un símbolo que no ha aparecido se escribe como el código del NYT seguido del
+ * símbolo en 9 bits; el valor FIN (256) en esa posición marca el final de los datos.
+ *
+ * Los nodos se guardan en arreglos y su posición en el arreglo es su número en el orden de los hermanos: los pesos
+ * no decrecen con el número y los dos hijos de un nodo tienen números consecutivos, con la raíz en el último lugar.
+ * Al actualizar, cada nodo se intercambia primero con el de mayor número que tiene su mismo peso, lo que mantiene
+ * esa propiedad al sumarle uno.
+ */
+class HuffmanAdaptativo {
+    static final int FIN = CodigoCanonico.SIMBOLOS;
+    static final int BITS_SIMBOLO = 9;
+
+    private static final int NODOS = 2 * (CodigoCanonico.SIMBOLOS + 1) - 1;
+    private static final int RAIZ = NODOS - 1;
+    private static final int NINGUNO = -1;
+
+    private final long[] pesos;
+    private final int[] padres;
+    private final int[] hijosIzq; // el hijo derecho de un nodo interno es siempre hijosIzq + 1
+    private final int[] simbolos; // NINGUNO en los nodos internos
+    private final int[] hojas;    // el nodo de cada símbolo, o NINGUNO si todavía no apareció
+    private final int[] camino;
+    private int nyt;
+
+    /**
+     * Constructor de la clase HuffmanAdaptativo. El árbol empieza con solo el nodo NYT.
+     */
+    HuffmanAdaptativo() {
+        pesos = new long[NODOS];
+        padres = new int[NODOS];
+        hijosIzq = new int[NODOS];
+        simbolos = new int[NODOS];
+        hojas = new int[CodigoCanonico.SIMBOLOS];
+        camino = new int[NODOS];
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            hojas[x] = NINGUNO;
+        }
+        nyt = RAIZ;
+        padres[RAIZ] = NINGUNO;
+        hijosIzq[RAIZ] = NINGUNO;
+        simbolos[RAIZ] = NINGUNO;
+    }
+
+    /**
+     * Comprime una entrada hasta que se termina y escribe el símbolo FIN. No se cierra la salida.
+     * @param entrada de donde se leen los datos originales.
+     * @param salida donde se escriben los códigos.
+     * @return la cantidad de bytes originales leídos.
+     * @throws IOException si no se puede leer la entrada.
+     */
+    long comprimir(InputStream entrada, BitOutputStream salida) throws IOException {
+        byte[] bloque = new byte[Histograma.TAMANO_BLOQUE];
+        long total = 0;
+        int leidos = entrada.read(bloque);
+        while (leidos >= 0) {
+            for (int x = 0; x < leidos; x++) {
+                codificar(bloque[x] & 0xFF, salida);
+            }
+            total += leidos;
+            leidos = entrada.read(bloque);
+        }
+        codificar(FIN, salida);
+        return total;
+    }
+
+    /**
+     * Descomprime hasta el símbolo FIN, escribiendo solo los bytes originales que están en [inicio, fin). Después de
+     * la parte pedida se deja de leer.
+     * @param entrada el archivo comprimido, posicionado después del encabezado.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param fin la posición siguiente al último byte que se quiere.
+     * @param salida donde se escriben los bytes originales.
+     * @return la cantidad de bytes escritos.
+     * @throws IOException si el archivo está dañado o no se puede escribir la salida.
+     */
+    long descomprimir(BitInputStream entrada, long inicio, long fin, OutputStream salida) throws IOException {
+        byte[] bloque = new byte[Histograma.TAMANO_BLOQUE];
+        int cantidad = 0;
+        long posicion = 0;
+        long escritos = 0;
+        while (posicion < fin) {
+            int simbolo = decodificar(entrada);
+            if (simbolo == FIN) {
+                break;
+            }
+            if (posicion >= inicio) {
+                bloque[cantidad++] = (byte) simbolo;
+                if (cantidad == bloque.length) {
+                    salida.write(bloque, 0, cantidad);
+                    escritos += cantidad;
+                    cantidad = 0;
+                }
+            }
+            posicion++;
+        }
+        salida.write(bloque, 0, cantidad);
+        return escritos + cantidad;
+    }
+
+    /**
+     * Escribe el código de un símbolo y actualiza el árbol.
+     * @param simbolo el byte a codificar, o FIN.
+     * @param salida donde se escribe el código.
+     */
+    void codificar(int simbolo, BitOutputStream salida) {
+        int nodo = simbolo == FIN ? NINGUNO : hojas[simbolo];
+        escribirCamino(nodo == NINGUNO ? nyt : nodo, salida);
+        if (nodo == NINGUNO) {
+            salida.writeBits(simbolo, BITS_SIMBOLO);
+        }
+        if (simbolo != FIN) {
+            actualizar(simbolo);
+        }
+    }
+
+    /**
+     * Lee el código de un símbolo y actualiza el árbol.
+     * @param entrada el archivo comprimido.
+     * @return el byte decodificado, o FIN.
+     * @throws IOException si el archivo se termina antes de tiempo o tiene un símbolo inválido.
+     */
+    int decodificar(BitInputStream entrada) throws IOException {
+        int nodo = RAIZ;
+        while (hijosIzq[nodo] != NINGUNO) {
+            nodo = hijosIzq[nodo] + leerBits(entrada, 1);
+        }
+        int simbolo = simbolos[nodo];
+        if (nodo == nyt) {
+            simbolo = leerBits(entrada, BITS_SIMBOLO);
+            if (simbolo == FIN) {
+                return FIN;
+            }
+            if (simbolo > FIN || hojas[simbolo] != NINGUNO) {
+                throw new IOException("Símbolo nuevo inválido: " + simbolo);
+            }
+        }
+        actualizar(simbolo);
+        return simbolo;
+    }
+
+    // Lee los siguientes n bits, fallando si el archivo se terminó.
+    private static int leerBits(BitInputStream entrada, int n) throws IOException {
+        try {
+            int bits = (int) entrada.peekBits(n);
+            entrada.consumeBits(n);
+            return bits;
+        } catch (BitOutputStream.BitIOException exception) {
+            throw new IOException("El archivo comprimido está incompleto", exception);
+        }
+    }
+
+    // Escribe los bits del camino desde la raíz hasta un nodo.
+    private void escribirCamino(int nodo, BitOutputStream salida) {
+        int largo = 0;
+        while (nodo != RAIZ) {
+            camino[largo++] = nodo - hijosIzq[padres[nodo]];
+            nodo = padres[nodo];
+        }
+        while (largo > 0) {
+            long bits = 0;
+            int n = Math.min(largo, 32);
+            for (int x = 0; x < n; x++) {
+                bits |= (long) camino[--largo] << x;
+            }
+            salida.writeBits(bits, n);
+        }
+    }
+
+    // Suma uno al peso del símbolo y de sus ancestros, reordenando el árbol para que siga siendo de Huffman.
+    private void actualizar(int simbolo) {
+        int nodo = hojas[simbolo];
+        if (nodo == NINGUNO) { // el NYT se divide en un nuevo NYT (izquierda) y la hoja del símbolo (derecha)
+            int viejo = nyt;
+            nyt = viejo - 2;
+            int hoja = viejo - 1;
+            hijosIzq[viejo] = nyt;
+            iniciarHoja(nyt, viejo, NINGUNO);
+            iniciarHoja(hoja, viejo, simbolo);
+            hojas[simbolo] = hoja;
+            pesos[hoja]++;
+            nodo = viejo;
+        }
+        while (nodo != NINGUNO) {
+            int lider = nodo;
+            while (lider < RAIZ && pesos[lider + 1] == pesos[nodo]) {
+                lider++;
+            }
+            if (lider != nodo && lider != padres[nodo]) {
+                intercambiar(nodo, lider);
+                nodo = lider;
+            }
+            pesos[nodo]++;
+            nodo = padres[nodo];
+        }
+    }
+
+    // Deja un nodo como hoja de peso cero.
+    private void iniciarHoja(int nodo, int padre, int simbolo) {
+        pesos[nodo] = 0;
+        padres[nodo] = padre;
+        hijosIzq[nodo] = NINGUNO;
+        simbolos[nodo] = simbolo;
+    }
+
+    // Intercambia los subárboles que están en las posiciones a y b. Cada posición conserva su padre.
+    private void intercambiar(int a, int b) {
+        long peso = pesos[a];
+        pesos[a] = pesos[b];
+        pesos[b] = peso;
+        int hijo = hijosIzq[a];
+        hijosIzq[a] = hijosIzq[b];
+        hijosIzq[b] = hijo;
+        int simbolo = simbolos[a];
+        simbolos[a] = simbolos[b];
+        simbolos[b] = simbolo;
+        reenlazar(a);
+        reenlazar(b);
+        if (nyt == a) {
+            nyt = b;
+        } else if (nyt == b) {
+            nyt = a;
+        }
+    }
+
+    // Actualiza las referencias hacia el nodo que quedó en una posición.
+    private void reenlazar(int nodo) {
+        if (hijosIzq[nodo] != NINGUNO) {
+            padres[hijosIzq[nodo]] = nodo;
+            padres[hijosIzq[nodo] + 1] = nodo;
+        } else if (simbolos[nodo] != NINGUNO) {
+            hojas[simbolos[nodo]] = nodo;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Índice de los bloques de un archivo comprimido por bloques. Va después del último bloque y tiene, por cada bloque,
+ * la posición en bits donde empieza dentro del archivo comprimido (8 bytes) y cuántos bytes originales contiene
+ * (4 bytes). El archivo termina con la posición en bytes donde empieza el índice (8 bytes).
+ */
+class IndiceBloques {
+    static final int TAMANO_ENTRADA = 12;
+
+    private final long[] desplazamientos;
+    private final int[] longitudes;
+    private final long[] posiciones;
+    private int cantidad;
+
+    /**
+     * Constructor de la clase IndiceBloques. Se crea un índice vacío.
+     * @param capacidad cantidad de bloques que va a tener.
+     */
+    IndiceBloques(int capacidad) {
+        desplazamientos = new long[capacidad];
+        longitudes = new int[capacidad];
+        posiciones = new long[capacidad];
+        cantidad = 0;
+    }
+
+    /**
+     * Agrega un bloque al final del índice.
+     * @param desplazamiento la posición en bits donde empieza el bloque comprimido.
+     * @param longitud cuántos bytes originales tiene el bloque.
+     */
+    void agregar(long desplazamiento, int longitud) {
+        desplazamientos[cantidad] = desplazamiento;
+        longitudes[cantidad] = longitud;
+        posiciones[cantidad] = cantidad == 0 ? 0 : posiciones[cantidad - 1] + longitudes[cantidad - 1];
+        cantidad++;
+    }
+
+    /**
+     * Devuelve la cantidad de bloques.
+     * @return la cantidad de bloques en el índice.
+     */
+    int numElementos() {
+        return cantidad;
+    }
+
+    /**
+     * Devuelve dónde empieza un bloque dentro del archivo comprimido.
+     * @param bloque el número de bloque, desde 0.
+     * @return la posición en bits.
+     */
+    long desplazamiento(int bloque) {
+        return desplazamientos[bloque];
+    }
+
+    /**
+     * Devuelve cuántos bytes originales tiene un bloque.
+     * @param bloque el número de bloque, desde 0.
+     * @return el tamaño del bloque descomprimido.
+     */
+    int longitud(int bloque) {
+        return longitudes[bloque];
+    }
+
+    /**
+     * Devuelve dónde va un bloque dentro del archivo original.
+     * @param bloque el número de bloque, desde 0.
+     * @return la posición del primer byte del bloque en el archivo descomprimido.
+     */
+    long posicion(int bloque) {
+        return posiciones[bloque];
+    }
+
+    /**
+     * Revisa que los bloques del índice cubran exactamente el archivo original, antes de reservar su tamaño.
+     * @param tamArchivo el tamaño del archivo original, según el encabezado.
+     * @param tamBloque el tamaño de los bloques, según el encabezado.
+     * @throws IOException si algún bloque es más grande que tamBloque o la suma de los bloques no es tamArchivo.
+     */
+    void verificar(long tamArchivo, int tamBloque) throws IOException {
+        long total = 0;
+        for (int x = 0; x < cantidad; x++) {
+            if (longitudes[x] > tamBloque) {
+                throw new IOException("El índice de bloques está dañado");
+            }
+            total += longitudes[x];
+        }
+        if (total != tamArchivo) {
+            throw new IOException("El índice de bloques no coincide con el tamaño del archivo");
+        }
+    }
+
+    /**
+     * Busca el bloque que contiene un byte del archivo original.
+     * @param posicion la posición del byte en el archivo original.
+     * @return el número de bloque, o -1 si la posición no está en ningún bloque.
+     */
+    int bloqueDe(long posicion) {
+        int bajo = 0;
+        int alto = cantidad - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (posicion < posiciones[medio]) {
+                alto = medio - 1;
+            } else if (posicion >= posiciones[medio] + longitudes[medio]) {
+                bajo = medio + 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Crea un flujo de bits que empieza justo en el primer bit de un bloque.
+     * @param archivo el archivo comprimido.
+     * @param bloque el número de bloque, desde 0.
+     * @return el flujo, listo para decodificar el bloque.
+     */
+    BitInputStream abrir(ArchivoMapeado archivo, int bloque) {
+        long desplazamiento = desplazamientos[bloque];
+        long fin = bloque + 1 < cantidad ? (desplazamientos[bloque + 1] + 7) / 8 : archivo.tamano();
+        BitInputStream entrada = new BitInputStream(archivo.flujo(desplazamiento / 8, fin - desplazamiento / 8));
+        entrada.consumeBits((int) (desplazamiento % 8));
+        return entrada;
+    }
+
+    /**
+     * Escribe el índice y, al final, la posición donde empieza.
+     * @param salida donde se escribe.
+     * @param posicionIndice la posición en bytes del archivo comprimido donde se está escribiendo el índice.
+     * @throws IOException si no se puede escribir.
+     */
+    void escribir(DataOutputStream salida, long posicionIndice) throws IOException {
+        for (int x = 0; x < cantidad; x++) {
+            salida.writeLong(desplazamientos[x]);
+            salida.writeInt(longitudes[x]);
+        }
+        salida.writeLong(posicionIndice);
+    }
+
+    /**
+     * Lee el índice que está al final de un archivo comprimido por bloques.
+     * @param archivo el archivo comprimido.
+     * @return el índice leído.
+     * @throws IOException si el índice no tiene un formato válido.
+     */
+    static IndiceBloques leer(ArchivoMapeado archivo) throws IOException {
+        long tamano = archivo.tamano();
+        if (tamano < 8) {
+            throw new IOException("No se encontró el índice de bloques");
+        }
+        long posicionIndice = archivo.mapear(tamano - 8, 8).getLong();
+        long bytes = tamano - 8 - posicionIndice;
+        if (posicionIndice < 0 || bytes < 0 || bytes % TAMANO_ENTRADA != 0 || bytes / TAMANO_ENTRADA > Integer.MAX_VALUE) {
+            throw new IOException("El índice de bloques está dañado");
+        }
+        int bloques = (int) (bytes / TAMANO_ENTRADA);
+        IndiceBloques indice = new IndiceBloques(bloques);
+        ByteBuffer datos = archivo.mapear(posicionIndice, bytes);
+        for (int x = 0; x < bloques; x++) {
+            long desplazamiento = datos.getLong();
+            int longitud = datos.getInt();
+            if (desplazamiento < 0 || desplazamiento / 8 > posicionIndice || longitud < 0) {
+                throw new IOException("El índice de bloques está dañado");
+            }
+            indice.agregar(desplazamiento, longitud);
+        }
+        return indice;
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Lectura de partes de un archivo comprimido sin descomprimirlo completo. En el formato por bloques se usa el índice
+ * de bloques para saltar directamente al bloque donde empieza la parte pedida, y se decodifica solo hasta el último
+ * byte que se necesita. En el formato simple no hay puntos de sincronización, así que hay que decodificar desde el
+ * principio, descartando lo que está antes de la parte pedida. En el formato de flujo se saltan sin decodificar los
+ * bloques que quedan antes de la parte pedida, y en el adaptativo, el compartido y el de contexto se decodifica desde
+ * el principio.
+ */
+class LectorRangos implements Closeable {
+    private final ArchivoMapeado archivo;
+    private final Encabezado encabezado;
+    private final TablaDecodificacion tabla;
+    private final DescompresorBloques bloques;
+    private final IndiceBloques indice;
+    private final TablaCompartida tablaCompartida;
+
+    /**
+     * Abre un archivo comprimido y lee su encabezado y, si tiene, su índice de bloques.
+     * @param file el archivo comprimido.
+     * @throws IOException si el archivo no se puede abrir o no es un archivo comprimido válido.
+     */
+    LectorRangos(File file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Abre un archivo comprimido que puede haberse comprimido con una tabla compartida.
+     * @param file el archivo comprimido.
+     * @param tablaCompartida la tabla compartida, o null si no se tiene ninguna.
+     * @throws IOException si el archivo no se puede abrir o no es un archivo comprimido válido.
+     */
+    LectorRangos(File file, TablaCompartida tablaCompartida) throws IOException {
+        this.tablaCompartida = tablaCompartida;
+        archivo = new ArchivoMapeado(file);
+        try {
+            encabezado = Encabezado.leerConFirma(new BitInputStream(archivo.flujo()));
+            boolean porBloques = encabezado.formato == Encabezado.FORMATO_BLOQUES;
+            tabla = encabezado.formato == Encabezado.FORMATO_SIMPLE ? encabezado.decodificador() : null;
+            bloques = porBloques ? new DescompresorBloques(encabezado, DescompresorHuffman.predefinida(tablaCompartida, encabezado), null) : null;
+            indice = porBloques ? IndiceBloques.leer(archivo) : null;
+        } catch (IOException exception) {
+            archivo.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Devuelve el encabezado del archivo comprimido.
+     * @return el encabezado.
+     */
+    Encabezado encabezado() {
+        return encabezado;
+    }
+
+    /**
+     * Descomprime una parte del archivo original. Si la parte se sale del archivo, se recorta.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param longitud cuántos bytes se quieren.
+     * @param salida donde se escriben los bytes originales.
+     * @return cuántos bytes se escribieron.
+     * @throws IOException si el archivo comprimido está dañado o no se puede escribir la salida.
+     */
+    long leer(long inicio, long longitud, OutputStream salida) throws IOException {
+        if (inicio < 0 || longitud < 0) {
+            throw new IllegalArgumentException("Rango inválido: " + inicio + ", " + longitud);
+        }
+        if (encabezado.formato == Encabezado.FORMATO_FLUJO) {
+            return leerFlujo(inicio, inicio + longitud, salida);
+        }
+        if (encabezado.formato == Encabezado.FORMATO_COMPARTIDO) {
+            BitInputStream entrada = new BitInputStream(archivo.flujo());
+            Encabezado.leerConFirma(entrada);
+            TablaCompartida tabla = DescompresorHuffman.tablaCompartida(tablaCompartida, encabezado);
+            return tabla.decodificar(entrada, inicio, inicio + longitud, salida);
+        }
+        if (encabezado.formato == Encabezado.FORMATO_ADAPTATIVO) {
+            BitInputStream entrada = new BitInputStream(archivo.flujo());
+            Encabezado.leerConFirma(entrada);
+            return new HuffmanAdaptativo().descomprimir(entrada, inicio, inicio + longitud, salida);
+        }
+        long fin = Math.min(encabezado.tamArchivo, inicio + longitud);
+        if (inicio >= fin) {
+            return 0;
+        }
+        if (encabezado.formato == Encabezado.FORMATO_CONTEXTO) {
+            BitInputStream entrada = new BitInputStream(archivo.flujo());
+            Encabezado.leerConFirma(entrada);
+            ModeloContexto.leer(entrada).decodificar(entrada, inicio, fin, salida);
+        } else if (indice == null) {
+            leerSimple(inicio, fin, salida);
+        } else {
+            leerBloques(inicio, fin, salida);
+        }
+        return fin - inicio;
+    }
+
+    /**
+     * Descomprime una parte del archivo original en memoria.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param longitud cuántos bytes se quieren.
+     * @return los bytes originales; puede tener menos de 'longitud' si la parte se sale del archivo.
+     * @throws IOException si el archivo comprimido está dañado.
+     */
+    byte[] leer(long inicio, int longitud) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(longitud);
+        leer(inicio, longitud, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Cierra el archivo comprimido.
+     * @throws IOException si no se puede cerrar.
+     */
+    @Override
+    public void close() throws IOException {
+        archivo.close();
+    }
+
+    // Decodifica los bloques que cubren [inicio, fin). Cada bloque se decodifica desde su principio y solo hasta fin.
+    private void leerBloques(long inicio, long fin, OutputStream salida) throws IOException {
+        int bloque = indice.bloqueDe(inicio);
+        if (bloque < 0) {
+            throw new IOException("El índice de bloques no cubre la posición " + inicio);
+        }
+        byte[] datos = new byte[0];
+        long posicion = inicio;
+        while (posicion < fin) {
+            long inicioBloque = indice.posicion(bloque);
+            int hasta = (int) Math.min(indice.longitud(bloque), fin - inicioBloque);
+            if (datos.length < hasta) {
+                datos = new byte[hasta];
+            }
+            bloques.decodificar(indice.abrir(archivo, bloque), datos, hasta);
+            int desde = (int) (posicion - inicioBloque);
+            salida.write(datos, desde, hasta - desde);
+            posicion = inicioBloque + hasta;
+            bloque++;
+        }
+    }
+
+    // Decodifica desde el principio del archivo, descartando lo que está antes de inicio.
+    private void leerSimple(long inicio, long fin, OutputStream salida) throws IOException {
+        BitInputStream entrada = new BitInputStream(archivo.flujo());
+        Encabezado.leerConFirma(entrada);
+        byte[] descarte = new byte[BitInputStream.BUFFER_SIZE];
+        long faltan = inicio;
+        while (faltan > 0) {
+            int cantidad = (int) Math.min(descarte.length, faltan);
+            tabla.decodificar(entrada, descarte, 0, cantidad);
+            faltan -= cantidad;
+        }
+        tabla.decodificar(entrada, salida, fin - inicio);
+    }
+
+    // Recorre los bloques del formato de flujo; el tamaño original no se conoce hasta llegar al final.
+    private long leerFlujo(long inicio, long fin, OutputStream salida) throws IOException {
+        BitInputStream entrada = new BitInputStream(archivo.flujo());
+        Encabezado.leerConFirma(entrada);
+        TablaCompartida predefinida = DescompresorHuffman.predefinida(tablaCompartida, encabezado);
+        return new DescompresorFlujo(encabezado.tamBloque, predefinida).descomprimir(entrada, inicio, fin, salida);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Calcula longitudes de código óptimas con la restricción de que ningún código sea más largo que un máximo dado,
+ * usando el algoritmo package-merge. Con esto tanto el compresor como el descompresor pueden trabajar los códigos en
+ * registros de tamaño fijo y con tablas de tamaño acotado.
+ */
+class LongitudLimitada {
+    static final int LONGITUD_MINIMA = 8;
+    static final int LONGITUD_MAXIMA = 32;
+
+    /**
+     * Constructor privado; esta clase solo tiene métodos estáticos.
+     */
+    private LongitudLimitada() {}
+
+    /**
+     * Calcula la longitud del código de cada símbolo sin pasarse de 'maximo' bits.
+     * En cada nivel se emparejan los elementos del nivel anterior en paquetes y se mezclan con las hojas en orden de
+     * peso. Al final se toman los 2n - 2 elementos más livianos y la longitud de cada símbolo es la cantidad de veces
+     * que aparece entre los elementos tomados de todos los niveles.
+     * @param histograma las frecuencias de los símbolos.
+     * @param maximo la longitud máxima permitida, entre LONGITUD_MINIMA y LONGITUD_MAXIMA.
+     * @return arreglo con la longitud del código de cada símbolo; 0 para los que no aparecen.
+     */
+    static int[] calcular(Histograma histograma, int maximo) {
+        int[] longitudes = new int[CodigoCanonico.SIMBOLOS];
+        int n = histograma.simbolosDistintos();
+        if (n < 2) {
+            return longitudes;
+        }
+
+        // Hojas ordenadas por frecuencia (y por símbolo en caso de empate).
+        int[] simbolos = new int[n];
+        long[] pesosHojas = new long[n];
+        int cantidad = 0;
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            if (histograma.frecuencia(x) != 0) {
+                int y = cantidad++;
+                while (y > 0 && pesosHojas[y - 1] > histograma.frecuencia(x)) {
+                    pesosHojas[y] = pesosHojas[y - 1];
+                    simbolos[y] = simbolos[y - 1];
+                    y--;
+                }
+                pesosHojas[y] = histograma.frecuencia(x);
+                simbolos[y] = x;
+            }
+        }
+
+        // tipos[nivel][i] es el índice de la hoja en esa posición, o -1 si es un paquete.
+        int[][] tipos = new int[maximo][];
+        tipos[0] = new int[n];
+        for (int x = 0; x < n; x++) {
+            tipos[0][x] = x;
+        }
+        long[] anterior = pesosHojas;
+        for (int nivel = 1; nivel < maximo; nivel++) {
+            int paquetes = anterior.length / 2;
+            long[] pesos = new long[n + paquetes];
+            int[] tipo = new int[n + paquetes];
+            int h = 0;
+            int p = 0;
+            for (int x = 0; x < pesos.length; x++) {
+                long pesoPaquete = p < paquetes ? anterior[2 * p] + anterior[2 * p + 1] : Long.MAX_VALUE;
+                if (h < n && pesosHojas[h] <= pesoPaquete) {
+                    pesos[x] = pesosHojas[h];
+                    tipo[x] = h++;
+                } else {
+                    pesos[x] = pesoPaquete;
+                    tipo[x] = -1;
+                    p++;
+                }
+            }
+            tipos[nivel] = tipo;
+            anterior = pesos;
+        }
+
+        int elegidos = 2 * n - 2;
+        for (int nivel = maximo - 1; nivel >= 0; nivel--) {
+            int paquetes = 0;
+            for (int x = 0; x < elegidos; x++) {
+                if (tipos[nivel][x] >= 0) {
+                    longitudes[simbolos[tipos[nivel][x]]]++;
+                } else {
+                    paquetes++;
+                }
+            }
+            elegidos = 2 * paquetes;
+        }
+        return longitudes;
+    }
+}
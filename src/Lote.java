@@ -0,0 +1,176 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compresión o descompresión de muchos archivos en un mismo proceso. Los archivos se reparten entre un grupo fijo de
+ * hilos; como con archivos pequeños buena parte del tiempo se va en abrir, leer y escribir, hay más hilos que
+ * procesadores para que mientras unos esperan al disco otros sigan trabajando.
+ *
+ * Al comprimir, "nombre.ext" se guarda como "nombre.ext.huf"; al descomprimir se le quita el ".huf". Nunca se
+ * sobrescribe un archivo que ya existe: ese archivo se informa como error y se sigue con los demás. Cada resultado se
+ * escribe primero en un archivo temporal y recién al terminar bien se mueve a su nombre, así que un archivo que falla
+ * no deja una salida a medias.
+ */
+class Lote {
+    static final String EXTENSION = ".huf";
+
+    private final CompresorHuffman compresor;
+    private final DescompresorHuffman descompresor;
+    private final int hilos;
+
+    /**
+     * Constructor de la clase Lote.
+     * @param compresor el compresor, con las opciones que se van a usar para todos los archivos.
+     * @param descompresor el descompresor.
+     * @param hilos cuántos archivos se procesan a la vez.
+     */
+    Lote(CompresorHuffman compresor, DescompresorHuffman descompresor, int hilos) {
+        this.compresor = compresor;
+        this.descompresor = descompresor;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Arma la lista de archivos a procesar. Los archivos se toman tal cual; de las carpetas se toman todos los archivos
+     * que contienen, recorriendo las subcarpetas: al comprimir, los que no terminan en ".huf", y al descomprimir, los
+     * que sí.
+     * @param rutas los archivos y carpetas.
+     * @param comprimir true si se va a comprimir, false si se va a descomprimir.
+     * @return la lista de archivos.
+     */
+    static Lista<File> archivos(String[] rutas, boolean comprimir) {
+        Lista<File> archivos = new Lista<>();
+        for (String ruta : rutas) {
+            File archivo = new File(ruta);
+            if (archivo.isDirectory()) {
+                agregarCarpeta(archivo, comprimir, archivos);
+            } else {
+                archivos.agregar(archivo);
+            }
+        }
+        return archivos;
+    }
+
+    /**
+     * Procesa todos los archivos y escribe una línea de resultado por cada uno, en el mismo orden de la lista.
+     * @param archivos los archivos a procesar.
+     * @param comprimir true para comprimir, false para descomprimir.
+     * @param informe donde se escriben los resultados.
+     * @return la cantidad de archivos que fallaron.
+     * @throws IOException si se interrumpe la espera de los resultados.
+     */
+    int procesar(Lista<File> archivos, boolean comprimir, PrintStream informe) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            Lista<Future<String>> tareas = new Lista<>();
+            Elemento<File> it = archivos.primero;
+            while (it != null) {
+                File origen = it.objeto;
+                tareas.agregar(pool.submit(() -> comprimir ? comprimir(origen) : descomprimir(origen)));
+                it = it.siguiente;
+            }
+
+            int errores = 0;
+            Elemento<File> archivo = archivos.primero;
+            Elemento<Future<String>> tarea = tareas.primero;
+            while (tarea != null) {
+                try {
+                    informe.println("OK    " + archivo.objeto + " -> " + tarea.objeto.get());
+                } catch (ExecutionException exception) {
+                    Throwable causa = exception.getCause();
+                    String mensaje = causa.getMessage() != null ? causa.getMessage() : causa.toString();
+                    informe.println("ERROR " + archivo.objeto + ": " + mensaje);
+                    errores++;
+                }
+                archivo = archivo.siguiente;
+                tarea = tarea.siguiente;
+            }
+            return errores;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Se interrumpió el procesamiento de los archivos", exception);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Comprime un archivo y devuelve la descripción del resultado.
+    private String comprimir(File origen) throws IOException {
+        File destino = new File(origen.getPath() + EXTENSION);
+        escribir(origen, destino, compresor::comprimir);
+        return destino + " (" + origen.length() + " -> " + destino.length() + " bytes)";
+    }
+
+    // Descomprime un archivo y devuelve la descripción del resultado.
+    private String descomprimir(File origen) throws IOException {
+        String nombre = origen.getPath();
+        if (!nombre.endsWith(EXTENSION)) {
+            throw new IOException("el nombre no termina en " + EXTENSION);
+        }
+        File destino = new File(nombre.substring(0, nombre.length() - EXTENSION.length()));
+        escribir(origen, destino, descompresor::descomprimir);
+        return destino + " (" + origen.length() + " -> " + destino.length() + " bytes)";
+    }
+
+    // Procesa un archivo sin dejar salidas a medias. Primero reserva el nombre de destino creándolo vacío, lo que falla
+    // si ya existe (aunque lo haya creado otro programa recién); después escribe en "destino.tmp" y solo si todo sale
+    // bien lo mueve sobre la reserva de una vez. Si algo falla se borran el temporal y la reserva.
+    private static void escribir(File origen, File destino, Proceso proceso) throws IOException {
+        Path reserva = destino.toPath();
+        try {
+            Files.createFile(reserva);
+        } catch (FileAlreadyExistsException exception) {
+            throw new IOException(destino + " ya existe", exception);
+        }
+        Path temporal = null;
+        try {
+            temporal = Files.createFile(new File(destino.getPath() + ".tmp").toPath());
+            proceso.procesar(origen, temporal.toFile());
+            Files.move(temporal, reserva, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Throwable exception) {
+            if (temporal != null) {
+                borrar(temporal, exception);
+            }
+            borrar(reserva, exception);
+            throw exception;
+        }
+    }
+
+    // Borra un archivo después de un error; si tampoco se puede borrar, lo agrega al error original.
+    private static void borrar(Path archivo, Throwable error) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException exception) {
+            error.addSuppressed(exception);
+        }
+    }
+
+    // Lo que se hace con cada archivo: comprimirlo o descomprimirlo de origen a destino.
+    private interface Proceso {
+        void procesar(File origen, File destino) throws IOException;
+    }
+
+    // Agrega los archivos de una carpeta y de sus subcarpetas.
+    private static void agregarCarpeta(File carpeta, boolean comprimir, Lista<File> archivos) {
+        File[] contenido = carpeta.listFiles();
+        if (contenido == null) {
+            return;
+        }
+        for (File archivo : contenido) {
+            if (archivo.isDirectory()) {
+                agregarCarpeta(archivo, comprimir, archivos);
+            } else if (archivo.getName().endsWith(EXTENSION) != comprimir) {
+                archivos.agregar(archivo);
+            }
+        }
+    }
+}
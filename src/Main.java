@@ -1,214 +1,132 @@
 import java.io.File;
-import java.io.FileInputStream;
+import java.io.FileDescriptor;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Clase Main. Aquí empieza la ejecución del programa.
  */
 public class Main {
 
+    private int longitudMaxima; // longitud máxima de los códigos, en bits
+    private int tamBloque; // tamaño de los bloques en bytes; 0 para no dividir el archivo en bloques
+    private boolean adaptativo; // true para usar Huffman adaptativo, sin tabla
+    private boolean contexto; // true para usar una tabla según el byte anterior (modelo de orden 1)
+    private boolean intercalado; // true para codificar cada bloque en sub-flujos, que se decodifican más rápido
+    private TablaCompartida tablaCompartida; // tabla entrenada de antemano, o null para armar una por archivo
+
     /**
      * Constructor del main.
      */
-    private Main() {}
+    private Main() {
+        longitudMaxima = LongitudLimitada.LONGITUD_MAXIMA;
+        tamBloque = 0;
+        adaptativo = false;
+        contexto = false;
+        intercalado = false;
+        tablaCompartida = null;
+    }
 
     /**
-     * Método que permite averiguar si el caracter 'c' se encuentra en la lista l.
-     * @param c El caracter que queremos buscar.
-     * @param l La lista en donde queremos buscar.
-     * @return true si el elemento se encuentra; false si sucede lo contrario.
+     * Procesa las opciones que empiezan con "-l" (por ejemplo "-l15", que limita los códigos a 15 bits) o con "-b"
+     * (por ejemplo "-b4", que comprime en bloques de 4 MB en paralelo; "-b" solo usa bloques de 1 MB), y la opción "-a"
+     * (Huffman adaptativo, en una sola pasada y sin tabla), la opción "-o" (tablas según el byte anterior), la opción "-i" (cada bloque en
+     * sub-flujos, que se decodifican más rápido; sin "-b" usa bloques de 1 MB), y "-t" seguida de la ruta de una tabla entrenada (por
+     * ejemplo "-tmensajes.hut"), y las quita de los parámetros, para que el resto del programa siga recibiendo la instrucción, el archivo y el nombre de salida.
+     * @param parametros los datos que recibe el programa.
+     * @return los parámetros sin las opciones.
      */
-    private boolean buscar(char c, Lista<Arbol<Par<Character,Integer>>> l) {
-        Elemento<Arbol<Par<Character,Integer>>> it1 = l.primero;
-        while (it1 != null) {
-            if (it1.objeto.getRaiz().getPrimero() == c) {
-                return true;
+    private String[] leerOpciones(String[] parametros) {
+        int cantidad = 0;
+        String[] resto = new String[parametros.length];
+        for (String parametro : parametros) {
+            if (parametro.equals("-a")) {
+                adaptativo = true;
+            } else if (parametro.equals("-o")) {
+                contexto = true;
+            } else if (parametro.equals("-i")) {
+                intercalado = true;
+            } else if (parametro.startsWith("-t")) {
+                try {
+                    tablaCompartida = TablaCompartida.leer(new File(parametro.substring(2)));
+                } catch (IOException exception) {
+                    System.out.println("ERROR, no se pudo leer la tabla compartida: " + exception.getMessage());
+                    System.exit(-6);
+                }
+            } else if (parametro.startsWith("-l")) {
+                int longitud = -1;
+                try {
+                    longitud = Integer.parseInt(parametro.substring(2));
+                } catch (NumberFormatException exception) {
+                    longitud = -1;
+                }
+                if (longitud < LongitudLimitada.LONGITUD_MINIMA || longitud > LongitudLimitada.LONGITUD_MAXIMA) {
+                    System.out.println("ERROR, la longitud máxima de los códigos tiene que estar entre "
+                            + LongitudLimitada.LONGITUD_MINIMA + " y " + LongitudLimitada.LONGITUD_MAXIMA);
+                    System.exit(-6);
+                }
+                longitudMaxima = longitud;
+            } else if (parametro.startsWith("-b")) {
+                int megas = -1;
+                try {
+                    megas = parametro.length() == 2 ? CompresorBloques.TAMANO_BLOQUE >> 20 : Integer.parseInt(parametro.substring(2));
+                } catch (NumberFormatException exception) {
+                    megas = -1;
+                }
+                if (megas < 1 || megas > 1024) {
+                    System.out.println("ERROR, el tamaño de los bloques tiene que estar entre 1 y 1024 MB");
+                    System.exit(-6);
+                }
+                tamBloque = megas << 20;
             } else {
-                it1 = it1.siguiente;
+                resto[cantidad++] = parametro;
             }
         }
-        return false;
-    }
-
-    /**
-     * Método que permite crear el árbol de Huffman correspondiente a los elementos (caracteres y frecuencias) que se
-     * encuentran en la lista l.
-     * @param l la lista de la cual queremos crear el árbol.
-     * @return el arbol de Huffman completamente terminado.
-     */
-    private Arbol<Par<Character,Integer>> crearArbolHuffman(Lista<Arbol<Par<Character,Integer>>> l) {
-        while (l.primero.siguiente != null) {
-            l = this.burbuja(l);
-            Arbol<Par<Character,Integer>> hijoIzq = l.primero.objeto;
-            Arbol<Par<Character,Integer>> hijoDer = l.primero.siguiente.objeto;
-            Arbol<Par<Character,Integer>> nuevoArbol = new Arbol<>(new Par('_',(hijoIzq.getRaiz().getSegundo() + hijoDer.getRaiz().getSegundo())),hijoIzq,hijoDer);
-            l.BorrarPrimero();
-            l.BorrarPrimero();
-            l.agregar(nuevoArbol);
+        if (adaptativo && tablaCompartida != null) {
+            System.out.println("ERROR, el modo adaptativo no usa tabla compartida");
+            System.exit(-6);
         }
-        return l.primero.objeto;
-    }
-
-    /**
-     * Aplica el algoritmo burbuja para ordenar los elementos de la lista de menor a mayor, según la frecuencia con la que
-     * aparece cada elemento.
-     * @param l la lista que queremos ordenar.
-     * @return lista ya ordenada de menor a mayor.
-     */
-    private Lista<Arbol<Par<Character,Integer>>> burbuja(Lista<Arbol<Par<Character,Integer>>> l) {
-        Elemento<Arbol<Par<Character,Integer>>> it1 = l.ultimo;
-        while (it1 != l.primero) {
-            Elemento<Arbol<Par<Character,Integer>>> it2 = l.primero;
-            int contador = 0;
-            while (it2.siguiente != null) {
-                if (it2.objeto.getRaiz().getSegundo() > it2.siguiente.objeto.getRaiz().getSegundo()) {
-                    l.intercambiar(contador,contador+1);
-                }
-                contador++;
-                it2 = it2.siguiente;
-            }
-            it1 = it1.anterior;
+        if (intercalado && (adaptativo || contexto)) {
+            System.out.println("ERROR, la opción -i no se combina con -a ni -o");
+            System.exit(-6);
         }
-        return l;
-    }
-
-    /**
-     * Crea una 'tabla' a apartir de un arbol de Huffman en especifico. Esta tabla será una lista de pares,
-     * donde cada par es de tipo char y String. El char representa el caracter y el String su codigo asociado.
-     * Esta tabla será la que se guarde en el archivo comprimido. Sin esta, el archivo no se podría descomprimir.
-     * @param arbol el Arbol de Huffman del cual queremos hacer la tabla.
-     * @param hilera hilera auxiliar. Al ser un algoritmo recursivo, se ocupa conocer el codigo del padre, para 'seguir la secuencia'.
-     * @param listaAnterior al igual que el parametro anterior, es auxiliar. Se ocupa conocer la secuencia del nodo anterior.
-     * @return lista con todos los caracteres identificados con sus respectivos codigos.
-     */
-    private Lista<Par<Character,String>> crearTabla(Arbol<Par<Character,Integer>> arbol,String hilera, Lista<Par<Character,String>> listaAnterior) {
-        Lista<Par<Character,String>> lista = listaAnterior;
-        if (arbol.esHoja()) {
-            lista.agregar(new Par<>(arbol.getRaiz().getPrimero(),hilera));
-        } else {
-            lista = crearTabla(arbol.getHijoIzq(), hilera + "0", lista);
-            lista = crearTabla(arbol.getHijoDer(), hilera + "1", lista);
+        if (intercalado && tamBloque == 0) {
+            tamBloque = CompresorBloques.TAMANO_BLOQUE;
+        }
+        if (contexto && (adaptativo || tablaCompartida != null || tamBloque > 0)) {
+            System.out.println("ERROR, la opción -o no se combina con -a, -t ni -b");
+            System.exit(-6);
         }
-        return lista;
+        String[] resultado = new String[cantidad];
+        System.arraycopy(resto, 0, resultado, 0, cantidad);
+        return resultado;
     }
 
     /**
-     * Método que se encarga de la compresión. Entre sus acciones están: crear el árbold de Huffman y su tabla asociada,
-     * Crear el archivo de salida, guardar la tabla y guardar los datos.
-     * @param file1 el archivo que queremos comprimir.
-     * @param file2 una copia auxiliar del archivo que queremos comprimir.
+     * Método que se encarga de la compresión. La hace CompresorHuffman; acá se elige el nombre del archivo de salida
+     * y se informa el resultado.
+     * @param archivo el archivo que queremos comprimir, mapeado en memoria.
      * @param tipo Se refiere a si el usuario desea un nombre para el archivo de salida.
      *             Si así fuera, tipo posee ese nombre.
      *             Si así no fuera, tipo posee el nombre original.
      * @param nombreDestino opcional. Es el nombre del archivo de salida.
      */
-    private void comprimir(BitInputStream file1, BitInputStream file2, String tipo, String nombreDestino) {
-        System.out.println("Comprimiendo archivo...");
-        Lista<Arbol<Par<Character, Integer>>> l = new Lista<>();
-        int tamArchivo = 0;
-        System.out.println("Creando lista...");
-        while (file1.hasNextBit()) {
-            int readByte = file1.read();
-            if (buscar((char) readByte, l)) {
-                Arbol<Par<Character, Integer>> elem = null;
-                for (int x = 0; x < l.numElementos(); x++) {
-                    if (l.recuperar(x).getRaiz().getPrimero() == (char) readByte) {
-                        elem = l.recuperar(x);
-                        x = l.numElementos() + 50;
-                    }
-                }
-                elem.getRaiz().modificarSegundo(elem.getRaiz().getSegundo() + 1);
-            } else {
-                Arbol<Par<Character, Integer>> a = new Arbol<>(new Par((char) readByte, 1), null, null);
-                l.agregar(a);
-            }
-            tamArchivo++;
-        }
-
-        System.out.println("Creando árbol...");
-        Arbol<Par<Character, Integer>> arbolHuffman = crearArbolHuffman(l);
-        System.out.println("Creando tabla...");
-        Lista<Par<Character, String>> tabla = crearTabla(arbolHuffman, "", new Lista<>());
-
+    private void comprimir(ArchivoMapeado archivo, String tipo, String nombreDestino) {
+        System.out.println(adaptativo ? "Comprimiendo archivo con Huffman adaptativo..." : "Comprimiendo archivo...");
         int tamano = tipo.length();
-        String tipoArchivo = tipo.substring(tamano - 3);
-
         try {
-            BitOutputStream nuevoBitOutputStream;
+            FileOutputStream destino;
             if (nombreDestino.equals("")) {
-                nuevoBitOutputStream = new BitOutputStream(new FileOutputStream(tipo.substring(0,tamano-4) + ".huf"));
+                destino = new FileOutputStream(tipo.substring(0,tamano-4) + ".huf");
             } else {
-                nuevoBitOutputStream = new BitOutputStream(new FileOutputStream(nombreDestino + ".huf"));
-            }
-
-            System.out.println("Escribiendo en archivo comprimido...");
-
-            nuevoBitOutputStream.write('h');
-            nuevoBitOutputStream.write('u');
-            nuevoBitOutputStream.write('f');
-            for (int x = 0; x < tipoArchivo.length(); x++) { //Extension del archivo original
-                nuevoBitOutputStream.write(tipoArchivo.charAt(x));
+                destino = new FileOutputStream(nombreDestino + ".huf");
             }
-            nuevoBitOutputStream.write(' ');
-            String hilera = "";
-            hilera += tabla.numElementos(); // cantidad de caracteres diferentes en el archivo
-            for (int x = 0; x < hilera.length(); x++) {
-                nuevoBitOutputStream.write(hilera.charAt(x));
-            }
-            nuevoBitOutputStream.write(' ');
-            hilera = "";
-            hilera += tamArchivo; // tamaño del archivo original
-            for (int x = 0; x < hilera.length(); x++) {
-                nuevoBitOutputStream.write(hilera.charAt(x));
-            }
-            nuevoBitOutputStream.write(' ');
-
-            Elemento<Par<Character, String>> it1 = tabla.primero;
-            while (it1 != null) {
-                nuevoBitOutputStream.write(it1.objeto.getPrimero());
-                hilera = "";
-                hilera += it1.objeto.getSegundo().length();
-                if (hilera.length() > 1) {
-                    nuevoBitOutputStream.write(255);
-                    for (int x = 0; x < hilera.length(); x++) {
-                        nuevoBitOutputStream.write(hilera.charAt(x));
-                    }
-                    nuevoBitOutputStream.write(255);
-                } else {
-                    nuevoBitOutputStream.write(hilera.charAt(0));
-                }
-                for (int x = 0; x < it1.objeto.getSegundo().length(); x++) {
-                    nuevoBitOutputStream.write(it1.objeto.getSegundo().charAt(x));
-                }
-                it1 = it1.siguiente;
-            }
-
-            file2.setBitMode(false);
-            int contador = 0;
-
-            while (file2.hasNextBit()) {
-                int readByte = file2.read();
-                Par<Character, String> par = null;
-                for (int x = 0; x < tabla.numElementos(); x++) {
-                    if (tabla.recuperar(x).getPrimero() == (char) readByte) {
-                        par = tabla.recuperar(x);
-                        x = tabla.numElementos() + 31;
-                    }
-                }
-                for (int x = 0; x < par.getSegundo().length(); x++) {
-                    char bit = par.getSegundo().charAt(x);
-                    contador++;
-                    if (bit == '0') {
-                        nuevoBitOutputStream.writeBit(0);
-                    } else {
-                        nuevoBitOutputStream.writeBit(1);
-                    }
-                }
-            }
-            while (contador % 8 != 0) {
-                nuevoBitOutputStream.writeBit(0);
-                contador++;
+            try {
+                compresor().comprimir(archivo, tipo.substring(tamano - 3), destino);
+            } finally {
+                destino.close();
+                archivo.close();
             }
             System.out.println("El archivo se comprimó correctamente.");
             System.exit(0);
@@ -219,171 +137,172 @@ public class Main {
     }
 
     /**
-     * Método que se encarga de la descompresión del archivo. Tiene una función inversa al método anterior.
-     * Entre sus acciones están: recrear el árbol de Huffman a partir de los datos en el archivo,
-     * crear el archivo de salida, y guardar los datos originales.
-     * @param file el archivo que queremos descomprimir. Tiene que ser un archivo anteriormente comprimido, osea, con extension .huf
+     * Método que se encarga de la descompresión del archivo. La hace DescompresorHuffman, que lee el encabezado y
+     * decodifica según el formato; acá se elige el nombre del archivo de salida y se informa el resultado.
+     * @param file el archivo que queremos descomprimir. Tiene que ser un archivo anteriormente comprimido, osea, con
+     *             extension .huf
      * @param nombreDestino opcional. Posee el nombre que el archivo de salida llevará.
      * @param tieneNombre false si el usuario no digita ninguno. Si fuera así, el archivo llevará el nombre original + "Descomprimido"
      */
-    private void descomprimir(BitInputStream file, String nombreDestino, boolean tieneNombre) {
+    private void descomprimir(File file, String nombreDestino, boolean tieneNombre) {
         System.out.println("Descomprimiendo...");
-
-        System.out.println("Comprobando formato de salida...");
-        String tipo = "";
-        boolean continuar = true;
-        while (continuar) {
-            int bytes = file.read();
-            if (bytes != 32) {
-                tipo += (char) bytes;
-            } else {
-                continuar = false;
-            }
+        String nombreSalida;
+        if (tieneNombre) {
+            nombreSalida = nombreDestino;
+        } else {
+            nombreSalida = nombreDestino.substring(0, nombreDestino.length() - 4) + "Descomprimido";
         }
-
-        System.out.println("Comprobando cantidad de caracteres distintos...");
-        String basura = "";
-        continuar = true;
-        while (continuar) {
-            int bytes = file.read();
-            if (bytes != 32) {
-                basura += (char) bytes;
-            } else {
-                continuar = false;
-            }
+        try {
+            new DescompresorHuffman(tablaCompartida).descomprimir(file, nombreSalida);
+            System.out.println("El archivo se descomprimó correctamente.");
+            System.exit(0);
+        } catch (IOException exception) {
+            System.out.println("Hubo un error al descomprimir: " + exception.getMessage());
+            System.exit(-3);
         }
-        int cantidadCaracteres = Integer.parseInt(basura);
+    }
 
-        System.out.println("Comprobando tamaño archivo de salida...");
-        basura = "";
-        continuar = true;
-        while (continuar) {
-            int bytes = file.read();
-            if (bytes != 32) {
-                basura += (char) bytes;
-            } else {
-                continuar = false;
-            }
+    /**
+     * Método que comprime o descomprime muchos archivos a la vez, en un mismo proceso, e informa el resultado de cada
+     * uno. Un archivo que falla no detiene a los demás.
+     * @param rutas los archivos y carpetas a procesar. De las carpetas se toman también las subcarpetas.
+     * @param comprimir true para comprimir, false para descomprimir.
+     */
+    private void procesarLote(String[] rutas, boolean comprimir) {
+        Lista<File> archivos = Lote.archivos(rutas, comprimir);
+        System.out.println((comprimir ? "Comprimiendo " : "Descomprimiendo ") + archivos.numElementos() + " archivos...");
+        int hilos = 2 * Runtime.getRuntime().availableProcessors();
+        try {
+            int errores = new Lote(compresor(), new DescompresorHuffman(tablaCompartida), hilos).procesar(archivos, comprimir, System.out);
+            System.out.println("Terminado: " + (archivos.numElementos() - errores) + " correctos, " + errores + " con errores.");
+            System.exit(errores == 0 ? 0 : -3);
+        } catch (IOException exception) {
+            System.out.println("Hubo un error al procesar los archivos: " + exception.getMessage());
+            System.exit(-3);
         }
-        int tamArchivo = Integer.parseInt(basura);
+    }
 
-        System.out.println("Reconstruyendo tabla...");
-        Lista<Par<Character,String>> tabla = new Lista<>();
-        while (tabla.numElementos() != cantidadCaracteres) {
-            String codigo = "";
-            char caracter = (char) file.read();
-            String temp = "";
-            int var = file.read();
-            if (var != 255) {
-                temp += (char) var;
-            } else {
-                var = file.read();
-                while (var != 255) {
-                    temp += (char) var;
-                    var = file.read();
-                }
-            }
-            for (int x = 0; x < Integer.parseInt(temp); x++) {
-                codigo += (char) file.read();
-            }
-            Par<Character,String> par = new Par<>(caracter, codigo);
-            tabla.agregar(par);
+    /**
+     * Método que entrena una tabla de códigos con las frecuencias de un conjunto de muestras y la guarda en un archivo,
+     * para después comprimir con la opción -t sin guardar la tabla en cada archivo comprimido.
+     * @param nombreTabla el archivo donde se guarda la tabla.
+     * @param muestras los archivos y carpetas con las muestras.
+     */
+    private void entrenar(String nombreTabla, String[] muestras) {
+        Lista<File> archivos = Lote.archivos(muestras, true);
+        System.out.println("Contando frecuencias de " + archivos.numElementos() + " muestras...");
+        File[] archivosMuestra = new File[archivos.numElementos()];
+        Elemento<File> it = archivos.primero;
+        for (int x = 0; it != null; x++) {
+            archivosMuestra[x] = it.objeto;
+            it = it.siguiente;
+        }
+        try {
+            TablaCompartida tabla = TablaCompartida.entrenar(archivosMuestra, longitudMaxima);
+            tabla.escribir(new File(nombreTabla));
+            System.out.println("Se guardó la tabla " + nombreTabla + " (identificador " + tabla.id() + ").");
+            System.exit(0);
+        } catch (IOException exception) {
+            System.out.println("Hubo un error al entrenar la tabla: " + exception.getMessage());
+            System.exit(-3);
         }
+    }
 
-        System.out.println("Reconstruyendo arbol...");
-        Arbol<Character> arbolHuffman = reconstruirArbol(tabla);
+    /**
+     * Crea el compresor con las opciones que se recibieron.
+     * @return el compresor.
+     */
+    private CompresorHuffman compresor() {
+        return new CompresorHuffman(longitudMaxima, tamBloque, adaptativo, contexto, intercalado, tablaCompartida);
+    }
 
-        try {
-            BitOutputStream nuevoBitOutputStream;
-            System.out.println("Creando descomprimido...");
+    /**
+     * Método que descomprime solo una parte del archivo original, sin descomprimir el resto. En un archivo comprimido
+     * por bloques se decodifican únicamente los bloques que cubren la parte pedida.
+     * @param file el archivo comprimido, con extensión .huf
+     * @param desde la posición del primer byte que se quiere, en el archivo original.
+     * @param cantidad cuántos bytes se quieren.
+     * @param nombreDestino opcional. Posee el nombre que el archivo de salida llevará.
+     * @param tieneNombre false si el usuario no digita ninguno. Si fuera así, el archivo llevará el nombre original + "Parte"
+     */
+    private void extraer(File file, long desde, long cantidad, String nombreDestino, boolean tieneNombre) {
+        System.out.println("Extrayendo bytes " + desde + " a " + (desde + cantidad) + "...");
+        try (LectorRangos lector = new LectorRangos(file, tablaCompartida)) {
+            String tipo = lector.encabezado().extension;
+            String nombreSalida;
             if (tieneNombre) {
-                nuevoBitOutputStream = new BitOutputStream(new FileOutputStream(nombreDestino + "." + tipo));
+                nombreSalida = nombreDestino + "." + tipo;
             } else {
-                String nombreArchivo = nombreDestino.substring(0, nombreDestino.length() - 4);
-                nuevoBitOutputStream = new BitOutputStream(new FileOutputStream(nombreArchivo + "Descomprimido." + tipo));
+                nombreSalida = nombreDestino.substring(0, nombreDestino.length() - 4) + "Parte." + tipo;
             }
-
-            System.out.println("Recorriendo arbol y escribiendo archivo...");
-            file.setBitMode(true);
-            int contador = 0;
-            while (contador < tamArchivo) {
-                Arbol<Character> it1 = arbolHuffman;
-                do {
-                    if (file.hasNextBit()) {
-                        int bit = file.readBit();
-                        if (bit == 0) {
-                            it1 = it1.getHijoIzq();
-                        } else {
-                            it1 = it1.getHijoDer();
-                        }
-                    } else {
-                        System.out.println("Sucedió un error inesperado");
-                        System.exit(2);
-                    }
-                } while (!it1.esHoja());
-                nuevoBitOutputStream.write(it1.getRaiz());
-                contador++;
+            long escritos;
+            try (FileOutputStream salida = new FileOutputStream(nombreSalida)) {
+                escritos = lector.leer(desde, cantidad, salida);
             }
-            System.out.println("El archivo se descomprimó correctamente.");
+            System.out.println("Se extrajeron " + escritos + " bytes correctamente.");
             System.exit(0);
         } catch (IOException exception) {
-            System.out.println("Hubo un error al crear el archivo descomprimido");
+            System.out.println("Hubo un error al extraer la parte pedida: " + exception.getMessage());
             System.exit(-3);
         }
     }
 
     /**
-     * Método auxiliar de la descompresión. Recibe los datos que se encontraban en el archivo comprimido y recrea el arbol de Huffman,
-     * siguiendo sus codigos.
-     * @param lista una lista de pares. Cada par será de tipo (char,String), donde char representa el caracter y String su codigo asociado.
-     * @return Arbol de Huffman reconstruido.
+     * Método que comprime la entrada estándar y escribe el resultado en la salida estándar, en una sola pasada y por
+     * bloques, cada uno con su propia tabla (o con Huffman adaptativo si se pidió la opción -a). Sirve para comprimir datos que llegan por una tubería sin guardarlos antes
+     * en un archivo. Como la salida estándar lleva los datos comprimidos, los mensajes van a la salida de errores.
+     * @param extension la extensión que llevará el archivo al descomprimirlo.
      */
-    private Arbol<Character> reconstruirArbol(Lista<Par<Character,String>> lista) {
-        Arbol<Character> arbol = new Arbol<>('\n', null, null);
-        for (int x = 0; x < lista.numElementos(); x++) {
-            Arbol<Character> aux = arbol;
-            Arbol<Character> it1 = aux;
-            String codigo = (lista.recuperar(x)).getSegundo();
-            for (int m = 0; m < codigo.length(); m++) {
-                char bit = codigo.charAt(m);
-                if (bit == '0') {
-                    if (it1.getHijoIzq() == null) {
-                        it1.setHijoIzq(new Arbol<>('\n', null, null));
-                        it1 = it1.getHijoIzq();
-                    } else {
-                        it1 = it1.getHijoIzq();
-                    }
-                } else {
-                    if (it1.getHijoDer() == null) {
-                        it1.setHijoDer(new Arbol<>('\n', null, null));
-                        it1 = it1.getHijoDer();
-                    } else {
-                        it1 = it1.getHijoDer();
-                    }
-                }
-            }
-            it1.setRaiz((lista.recuperar(x)).getPrimero());
-            arbol.setRaiz(aux.getRaiz());
-            arbol.setHijoIzq(aux.getHijoIzq());
-            arbol.setHijoDer(aux.getHijoDer());
+    private void comprimirFlujo(String extension) {
+        if (contexto) {
+            System.err.println("ERROR, la opción -o necesita un archivo: no sirve para la entrada estándar");
+            System.exit(-6);
+        }
+        try {
+            FileOutputStream salida = new FileOutputStream(FileDescriptor.out);
+            long total = compresor().comprimir(System.in, extension, salida);
+            salida.close();
+            System.err.println("Se comprimieron " + total + " bytes correctamente.");
+            System.exit(0);
+        } catch (IOException exception) {
+            System.err.println("Hubo un error al comprimir la entrada: " + exception.getMessage());
+            System.exit(-3);
         }
-        return arbol;
     }
 
     /**
      * Método desde el cual se inicia el programa.
-     * @param parametros los datos que el programa recibe. el primero debe ser la instrucción (-c para compresión o -d para descompresión).
+     * @param parametros los datos que el programa recibe. el primero debe ser la instrucción (-c para compresión, -d para descompresión,
+     *                   -r para descomprimir solo una parte, -s para comprimir la entrada estándar, o -mc y -md para
+     *                   comprimir o descomprimir muchos archivos a la vez, o -e para entrenar una tabla compartida).
      *                   El segundo es la ruta del archivo. tiene que ser un archivo válido.
      *                   El tercero es opcional, si se desea que el archivo de salida tenga un nombre en especial.
+     *                   En cualquier posición se puede agregar la opción -l seguida de un número (por ejemplo -l15)
+     *                   para limitar la longitud máxima de los códigos al comprimir, y la opción -b, opcionalmente
+     *                   seguida del tamaño en MB (por ejemplo -b4), para comprimir por bloques en paralelo. La opción
+     *                   -a comprime con Huffman adaptativo, la opción -o con una tabla según el byte anterior, y la
+     *                   opción -i guarda cada bloque en cuatro sub-flujos que se decodifican a la vez.
+     *                   Con -r, después del archivo van la posición del primer byte y la cantidad de bytes que se
+     *                   quieren del archivo original, y al final el nombre de salida opcional.
+     *                   Con -s no hay archivo: el segundo parámetro, opcional, es la extensión de los datos (por
+     *                   defecto "txt"), y el tamaño de los bloques se elige con -b.
+     *                   Con -mc y -md, todos los parámetros que siguen son archivos o carpetas.
+     *                   Con -e, el segundo parámetro es el archivo de la tabla a crear y los siguientes son las
+     *                   muestras (archivos o carpetas). La tabla se usa después con la opción -t, por ejemplo
+     *                   -tmensajes.hut, tanto al comprimir como al descomprimir.
      */
     public static void main(String[] parametros) {
+        Main main = new Main();
+        parametros = main.leerOpciones(parametros);
+        if (parametros.length > 0 && parametros[0].equals("-s")) {
+            main.comprimirFlujo(parametros.length > 1 ? parametros[1] : "txt");
+        }
         System.out.println("Verificando parámetros...");
         if (parametros.length == 0) {
             System.out.println("ERROR, No se recibió ninguna indicación");
             System.exit(-5);
         }
 
-        Main main = new Main();
         File file = null;
         if (!(parametros.length < 2)) {
             file = new File(parametros[1]);
@@ -391,46 +310,69 @@ public class Main {
             System.out.println("ERROR, No se recibió ningún archivo");
             System.exit(-4);
         }
+        if (parametros[0].equals("-e")) {
+            String[] muestras = new String[parametros.length - 2];
+            System.arraycopy(parametros, 2, muestras, 0, muestras.length);
+            main.entrenar(parametros[1], muestras);
+        }
+        if (parametros[0].equals("-mc") || parametros[0].equals("-md")) {
+            String[] rutas = new String[parametros.length - 1];
+            System.arraycopy(parametros, 1, rutas, 0, rutas.length);
+            main.procesarLote(rutas, parametros[0].equals("-mc"));
+        }
         try {
             if (parametros[0].equals("-c")) {
-                BitInputStream bitInputStream1 = new BitInputStream(new FileInputStream(file));
-                BitInputStream bitInputStream2 = new BitInputStream(new FileInputStream(file));
-                BitInputStream bitInputStream3 = new BitInputStream(new FileInputStream(file));
+                ArchivoMapeado archivo = new ArchivoMapeado(file);
 
-                bitInputStream1.setBitMode(false);
                 String mode = "";
-                while (mode.length() < 3) {
-                    if (bitInputStream1.hasNextBit()) {
-                        mode += (char) bitInputStream1.read();
-                    }
+                ByteBuffer inicio = archivo.mapear(0, Math.min(3, archivo.tamano()));
+                while (inicio.hasRemaining()) {
+                    mode += (char) (inicio.get() & 0xFF);
                 }
 
                 if (!mode.equals("huf")) {
                     if (parametros.length > 2) {
-                        main.comprimir(bitInputStream2, bitInputStream3, parametros[1], parametros[2]);
+                        main.comprimir(archivo, parametros[1], parametros[2]);
                     } else {
-                        main.comprimir(bitInputStream2, bitInputStream3, parametros[1], "");
+                        main.comprimir(archivo, parametros[1], "");
                     }
                 } else {
                     System.out.println("Sucedió un error, el archivo ya está comprimido. Favor revisarlo.");
                     System.exit(-3);
                 }
             }
+            if (parametros[0].equals("-r")) {
+                long desde = -1;
+                long cantidad = -1;
+                try {
+                    desde = Long.parseLong(parametros[2]);
+                    cantidad = Long.parseLong(parametros[3]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+                    desde = -1;
+                }
+                if (desde < 0 || cantidad < 0) {
+                    System.out.println("ERROR, se esperaba la posición inicial y la cantidad de bytes a extraer");
+                    System.exit(-6);
+                }
+                if (parametros.length > 4) {
+                    main.extraer(file, desde, cantidad, parametros[4], true);
+                } else {
+                    main.extraer(file, desde, cantidad, parametros[1], false);
+                }
+            }
             if (parametros[0].equals("-d")) {
-                BitInputStream bitInputStream1 = new BitInputStream(new FileInputStream(file));
-
-                bitInputStream1.setBitMode(false);
                 String mode = "";
-                while (mode.length() < 3) {
-                    if (bitInputStream1.hasNextBit()) {
-                        mode += (char) bitInputStream1.read();
+                try (ArchivoMapeado archivo = new ArchivoMapeado(file)) {
+                    ByteBuffer inicio = archivo.mapear(0, Math.min(3, archivo.tamano()));
+                    while (inicio.hasRemaining()) {
+                        mode += (char) (inicio.get() & 0xFF);
                     }
                 }
                 if (mode.equals("huf")) {
                     if (parametros.length > 2) {
-                        main.descomprimir(bitInputStream1, parametros[2], true);
+                        main.descomprimir(file, parametros[2], true);
                     } else {
-                        main.descomprimir(bitInputStream1, parametros[1], false);
+                        main.descomprimir(file, parametros[1], false);
                     }
                 } else {
                     System.out.println("Sucedió un error, el archivo no está comprimido, o sucedió un error de formato. Favor revisarlo.");
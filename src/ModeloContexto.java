@@ -0,0 +1,315 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Modelo de orden 1: cada byte se codifica con una tabla que depende del byte anterior. Tener una tabla por cada uno
+ * de los 256 contextos haría el encabezado demasiado grande, así que los contextos se agrupan en a lo sumo
+ * TABLAS_MAXIMAS grupos con frecuencias parecidas, y cada grupo tiene su tabla.
+ *
+ * Para agrupar, los contextos más frecuentes empiezan cada uno en su grupo y los demás juntos en el último. Después se
+ * repite unas pocas veces: se estima cuántos bits cuesta cada byte en cada grupo y se pasa cada contexto al grupo donde
+ * sus bytes cuestan menos. Al final se compara contra una sola tabla para todo, por si las tablas extra ocupan más de
+ * lo que ahorran.
+ *
+ * En el archivo comprimido, después del encabezado va la cantidad de tablas (un byte), el número de tabla de cada uno
+ * de los 256 contextos (un byte cada uno; no va si hay una sola tabla) y las tablas, cada una como en
+ * Encabezado.escribirTabla.
+ */
+class ModeloContexto {
+    static final int TABLAS_MAXIMAS = 16;
+
+    private static final int ITERACIONES = 6;
+    private static final int BYTES_POR_TABLA = 4096; // con menos datos por tabla, el encabezado no se paga
+
+    private final int[] contextos;
+    private final Encabezado[] tablas;
+
+    /**
+     * Constructor de la clase ModeloContexto.
+     * @param contextos el número de tabla de cada contexto.
+     * @param tablas las tablas.
+     */
+    ModeloContexto(int[] contextos, Encabezado[] tablas) {
+        this.contextos = contextos;
+        this.tablas = tablas;
+    }
+
+    /**
+     * Agrupa los contextos y arma la tabla de cada grupo.
+     * @param histograma las frecuencias de los bytes según su contexto.
+     * @param longitudMaxima la longitud máxima de los códigos.
+     * @return el modelo.
+     */
+    static ModeloContexto entrenar(HistogramaContexto histograma, int longitudMaxima) {
+        int[] orden = new int[CodigoCanonico.SIMBOLOS];
+        int activos = 0;
+        long total = 0;
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS; c++) {
+            if (histograma.total(c) > 0) {
+                orden[activos++] = c;
+                total += histograma.total(c);
+            }
+        }
+        // los contextos activos, del más frecuente al menos frecuente
+        for (int x = 1; x < activos; x++) {
+            int c = orden[x];
+            int y = x;
+            while (y > 0 && histograma.total(orden[y - 1]) < histograma.total(c)) {
+                orden[y] = orden[y - 1];
+                y--;
+            }
+            orden[y] = c;
+        }
+
+        int grupos = (int) Math.max(1, Math.min(Math.min(TABLAS_MAXIMAS, activos), total / BYTES_POR_TABLA));
+        int[] contextos = new int[CodigoCanonico.SIMBOLOS];
+        for (int x = 0; x < activos; x++) {
+            contextos[orden[x]] = Math.min(x, grupos - 1);
+        }
+        for (int iteracion = 0; iteracion < ITERACIONES; iteracion++) {
+            double[][] costos = costos(histograma, contextos, grupos);
+            boolean cambio = false;
+            for (int x = 0; x < activos; x++) {
+                int c = orden[x];
+                int mejor = contextos[c];
+                double costoMejor = costo(histograma, c, costos[mejor]);
+                for (int g = 0; g < grupos; g++) {
+                    double costo = costo(histograma, c, costos[g]);
+                    if (costo < costoMejor) {
+                        mejor = g;
+                        costoMejor = costo;
+                    }
+                }
+                cambio |= mejor != contextos[c];
+                contextos[c] = mejor;
+            }
+            if (!cambio) {
+                break;
+            }
+        }
+
+        ModeloContexto modelo = crear(histograma, contextos, grupos, longitudMaxima);
+        if (modelo.tablas.length > 1) {
+            ModeloContexto una = crear(histograma, new int[CodigoCanonico.SIMBOLOS], 1, longitudMaxima);
+            if (una.tamano(histograma) <= modelo.tamano(histograma)) {
+                return una;
+            }
+        }
+        return modelo;
+    }
+
+    /**
+     * Escribe la cantidad de tablas, el número de tabla de cada contexto y las tablas.
+     * @param salida donde se escribe.
+     */
+    void escribir(BitOutputStream salida) {
+        salida.write(tablas.length);
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS && tablas.length > 1; c++) {
+            salida.write(contextos[c]);
+        }
+        for (Encabezado tabla : tablas) {
+            tabla.escribirTabla(salida);
+        }
+    }
+
+    /**
+     * Lee un modelo escrito con escribir.
+     * @param entrada el archivo comprimido, posicionado después del encabezado.
+     * @return el modelo leído.
+     * @throws IOException si el modelo está incompleto o no es válido.
+     */
+    static ModeloContexto leer(BitInputStream entrada) throws IOException {
+        int cantidad = Encabezado.leerByte(entrada);
+        if (cantidad < 1 || cantidad > TABLAS_MAXIMAS) {
+            throw new IOException("Cantidad de tablas inválida");
+        }
+        int[] contextos = new int[CodigoCanonico.SIMBOLOS];
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS && cantidad > 1; c++) {
+            contextos[c] = Encabezado.leerByte(entrada);
+            if (contextos[c] >= cantidad) {
+                throw new IOException("Número de tabla inválido");
+            }
+        }
+        Encabezado[] tablas = new Encabezado[cantidad];
+        for (int x = 0; x < cantidad; x++) {
+            tablas[x] = Encabezado.leerTabla(entrada);
+        }
+        return new ModeloContexto(contextos, tablas);
+    }
+
+    /**
+     * Escribe el código de cada byte con la tabla de su contexto.
+     * @param datos los bytes originales. La posición del buffer no cambia.
+     * @param anterior el byte anterior al primero del buffer (0 al principio del archivo).
+     * @param salida donde se escriben los códigos.
+     * @return el último byte del buffer, que es el contexto del siguiente.
+     */
+    int codificar(ByteBuffer datos, int anterior, BitOutputStream salida) {
+        Codificador[] porContexto = porContexto(new Codificador[CodigoCanonico.SIMBOLOS], codificadores());
+        ByteBuffer copia = datos.duplicate();
+        byte[] bloque = new byte[Math.min(Histograma.TAMANO_BLOQUE, copia.remaining())];
+        int contexto = anterior;
+        while (copia.hasRemaining()) {
+            int cantidad = Math.min(bloque.length, copia.remaining());
+            copia.get(bloque, 0, cantidad);
+            for (int x = 0; x < cantidad; x++) {
+                int simbolo = bloque[x] & 0xFF;
+                porContexto[contexto].codificar(simbolo, salida);
+                contexto = simbolo;
+            }
+        }
+        return contexto;
+    }
+
+    /**
+     * Decodifica los primeros 'fin' bytes, escribiendo solo los que están en [inicio, fin). Cada byte se decodifica
+     * con la tabla del byte anterior.
+     * @param entrada el archivo comprimido, posicionado después del modelo.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param fin la posición siguiente al último byte que se quiere; a lo sumo el tamaño del archivo original.
+     * @param salida donde se escriben los bytes originales.
+     * @throws IOException si el archivo está dañado o no se puede escribir la salida.
+     */
+    void decodificar(BitInputStream entrada, long inicio, long fin, OutputStream salida) throws IOException {
+        TablaDecodificacion[] decodificadores = new TablaDecodificacion[tablas.length];
+        for (int x = 0; x < tablas.length; x++) {
+            decodificadores[x] = tablas[x].decodificador();
+        }
+        TablaDecodificacion[] porContexto = porContexto(new TablaDecodificacion[CodigoCanonico.SIMBOLOS], decodificadores);
+        byte[] bloque = new byte[(int) Math.min(Histograma.TAMANO_BLOQUE, Math.max(fin - inicio, 1))];
+        int cantidad = 0;
+        int contexto = 0;
+        for (long posicion = 0; posicion < fin; posicion++) {
+            contexto = porContexto[contexto].decodificar(entrada);
+            if (posicion >= inicio) {
+                bloque[cantidad++] = (byte) contexto;
+                if (cantidad == bloque.length) {
+                    salida.write(bloque, 0, cantidad);
+                    cantidad = 0;
+                }
+            }
+        }
+        salida.write(bloque, 0, cantidad);
+    }
+
+    // Arma el arreglo que da, para cada contexto, el objeto de su tabla.
+    private <T> T[] porContexto(T[] porContexto, T[] porTabla) {
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS; c++) {
+            porContexto[c] = porTabla[contextos[c]];
+        }
+        return porContexto;
+    }
+
+    // Arma el codificador de cada tabla.
+    private Codificador[] codificadores() {
+        Codificador[] codificadores = new Codificador[tablas.length];
+        for (int x = 0; x < tablas.length; x++) {
+            codificadores[x] = new Codificador(new CodigoCanonico(tablas[x].longitudes));
+        }
+        return codificadores;
+    }
+
+    // Calcula cuántos bytes ocupan las tablas y los códigos con este modelo.
+    private long tamano(HistogramaContexto histograma) {
+        long bits = 0;
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS; c++) {
+            Encabezado tabla = tablas[contextos[c]];
+            for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+                bits += histograma.frecuencia(c, s) * tabla.longitudes[s];
+            }
+        }
+        long bytes = (bits + 7) / 8 + (tablas.length > 1 ? CodigoCanonico.SIMBOLOS : 0);
+        for (Encabezado tabla : tablas) {
+            bytes += tabla.tamanoTabla();
+        }
+        return bytes;
+    }
+
+    // Arma el modelo con las tablas de los grupos que quedaron con algún contexto, renumerándolos desde 0. Los
+    // contextos que no aparecen quedan en la tabla 0.
+    private static ModeloContexto crear(HistogramaContexto histograma, int[] contextos, int grupos, int longitudMaxima) {
+        Histograma[] frecuencias = frecuencias(histograma, contextos, grupos);
+        int[] numeros = new int[grupos];
+        int cantidad = 0;
+        for (int g = 0; g < grupos; g++) {
+            numeros[g] = frecuencias[g].total() > 0 ? cantidad++ : 0;
+        }
+        Encabezado[] tablas = new Encabezado[Math.max(cantidad, 1)];
+        tablas[0] = tabla(new Histograma(), longitudMaxima); // si el archivo está vacío queda esta
+        for (int g = 0; g < grupos; g++) {
+            if (frecuencias[g].total() > 0) {
+                tablas[numeros[g]] = tabla(frecuencias[g], longitudMaxima);
+            }
+        }
+        int[] renumerados = new int[CodigoCanonico.SIMBOLOS];
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS; c++) {
+            renumerados[c] = numeros[contextos[c]];
+        }
+        return new ModeloContexto(renumerados, tablas);
+    }
+
+    // Suma las frecuencias de los contextos de cada grupo.
+    private static Histograma[] frecuencias(HistogramaContexto histograma, int[] contextos, int grupos) {
+        Histograma[] frecuencias = new Histograma[grupos];
+        for (int g = 0; g < grupos; g++) {
+            frecuencias[g] = new Histograma();
+        }
+        for (int c = 0; c < CodigoCanonico.SIMBOLOS; c++) {
+            if (histograma.total(c) == 0) {
+                continue;
+            }
+            for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+                frecuencias[contextos[c]].agregar(s, histograma.frecuencia(c, s));
+            }
+        }
+        return frecuencias;
+    }
+
+    // Estima cuántos bits cuesta cada byte en cada grupo: -log2 de su probabilidad en el grupo, sumando un poco a todas
+    // las frecuencias para que un byte que no aparece en el grupo no cueste infinito. Los grupos vacíos quedan en null.
+    private static double[][] costos(HistogramaContexto histograma, int[] contextos, int grupos) {
+        Histograma[] frecuencias = frecuencias(histograma, contextos, grupos);
+        double[][] costos = new double[grupos][];
+        for (int g = 0; g < grupos; g++) {
+            if (frecuencias[g].total() == 0) {
+                continue;
+            }
+            costos[g] = new double[CodigoCanonico.SIMBOLOS];
+            double total = frecuencias[g].total() + 0.5 * CodigoCanonico.SIMBOLOS;
+            for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+                costos[g][s] = Math.log(total / (frecuencias[g].frecuencia(s) + 0.5)) / Math.log(2);
+            }
+        }
+        return costos;
+    }
+
+    // Calcula cuántos bits costarían los bytes de un contexto con los costos de un grupo.
+    private static double costo(HistogramaContexto histograma, int contexto, double[] costos) {
+        if (costos == null) {
+            return Double.MAX_VALUE;
+        }
+        double bits = 0;
+        for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+            bits += histograma.frecuencia(contexto, s) * costos[s];
+        }
+        return bits;
+    }
+
+    // Arma la tabla para las frecuencias de un grupo. Si hay un solo byte (o ninguno) se usa el código vacío.
+    private static Encabezado tabla(Histograma frecuencias, int longitudMaxima) {
+        Encabezado tabla = new Encabezado();
+        tabla.longitudMaxima = longitudMaxima;
+        if (frecuencias.simbolosDistintos() > 1) {
+            tabla.longitudes = ConstructorCodigos.longitudes(frecuencias, longitudMaxima);
+        } else {
+            tabla.simboloUnico = 0;
+            for (int s = 0; s < CodigoCanonico.SIMBOLOS; s++) {
+                if (frecuencias.frecuencia(s) > 0) {
+                    tabla.simboloUnico = s;
+                }
+            }
+        }
+        return tabla;
+    }
+}
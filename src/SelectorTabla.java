@@ -0,0 +1,159 @@
+import java.io.IOException;
+
+/**
+ * Elección de la tabla con que se codifica cada bloque. Con el histograma del bloque se calcula cuántos bits ocuparía
+ * con cada opción, sin codificarlo, y se usa la más pequeña:
+ * - NUEVA: una tabla armada solo para el bloque, que se guarda antes de sus datos.
+ * - ANTERIOR: la tabla que ya se tiene, sin guardarla otra vez. En el formato de flujo es la del último bloque con
+ *   tabla nueva; en el formato por bloques es la del encabezado general, para que cada bloque se pueda decodificar
+ *   por su cuenta.
+ * - PREDEFINIDA: la tabla compartida (ver TablaCompartida), si se indicó una.
+ * - CRUDO: los bytes originales tal cual, cuando ninguna tabla los achica; así los datos ya comprimidos no crecen.
+ * Una tabla sirve para un bloque solo si todos los caracteres del bloque tienen código en ella.
+ * Si los códigos del bloque van en sub-flujos (ver FlujosIntercalados), al tipo se le suma INTERCALADO, lo que lo
+ * convierte en la misma letra en minúscula. En ese caso las opciones con tabla ocupan además los tamaños de los flujos
+ * y el relleno de cada uno, que en bloques pequeños pueden pesar más que lo que ahorran los códigos.
+ */
+class SelectorTabla {
+    static final char NUEVA = 'N';
+    static final char ANTERIOR = 'P';
+    static final char PREDEFINIDA = 'T';
+    static final char CRUDO = 'R';
+    static final char INTERCALADO = 0x20;
+
+    private static final long NO_SIRVE = Long.MAX_VALUE;
+
+    private final int longitudMaxima;
+    private final TablaCompartida predefinida;
+
+    /**
+     * Constructor de la clase SelectorTabla.
+     * @param longitudMaxima la longitud máxima de los códigos de las tablas nuevas.
+     * @param predefinida la tabla compartida, o null si no se tiene ninguna.
+     */
+    SelectorTabla(int longitudMaxima, TablaCompartida predefinida) {
+        this.longitudMaxima = longitudMaxima;
+        this.predefinida = predefinida;
+    }
+
+    /**
+     * Elige cómo codificar un bloque.
+     * @param histograma las frecuencias de los caracteres del bloque; tiene que tener al menos un caracter.
+     * @param anterior el encabezado con la tabla anterior, o null si no hay.
+     * @param intercalado true si los códigos del bloque van en sub-flujos.
+     * @return un encabezado con el tipo de bloque elegido y, si es NUEVA, con la tabla nueva.
+     */
+    Encabezado elegir(Histograma histograma, Encabezado anterior, boolean intercalado) {
+        long total = histograma.total();
+        Encabezado eleccion = nuevaTabla(histograma);
+        long mejor = bytes(bits(histograma, eleccion.longitudes, eleccion.simboloUnico), total, intercalado)
+                + eleccion.tamanoTabla();
+        long crudo = total;
+        if (crudo <= mejor) {
+            eleccion.tipoBloque = CRUDO;
+            mejor = crudo;
+        }
+        if (predefinida != null) {
+            long bits = bits(histograma, predefinida.longitudes(), -1);
+            if (bits != NO_SIRVE && bytes(bits, total, intercalado) <= mejor) {
+                eleccion.tipoBloque = PREDEFINIDA;
+                mejor = bytes(bits, total, intercalado);
+            }
+        }
+        if (anterior != null) {
+            long bits = bits(histograma, anterior.longitudes, anterior.simboloUnico);
+            if (bits != NO_SIRVE && bytes(bits, total, intercalado) <= mejor) {
+                eleccion.tipoBloque = ANTERIOR;
+            }
+        }
+        return eleccion;
+    }
+
+    /**
+     * Calcula cuántos bits ocupan los códigos de un bloque con una tabla.
+     * @param histograma las frecuencias de los caracteres del bloque.
+     * @param longitudes la longitud del código de cada caracter en la tabla.
+     * @param simboloUnico el caracter con el código vacío si la tabla tiene uno solo, o -1.
+     * @return la cantidad de bits, o NO_SIRVE si algún caracter del bloque no tiene código.
+     */
+    static long bits(Histograma histograma, int[] longitudes, int simboloUnico) {
+        long bits = 0;
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            long frecuencia = histograma.frecuencia(x);
+            if (frecuencia == 0 || x == simboloUnico) {
+                continue;
+            }
+            if (longitudes[x] == 0) {
+                return NO_SIRVE;
+            }
+            bits += frecuencia * longitudes[x];
+        }
+        return bits;
+    }
+
+    /**
+     * Valida el byte de tipo de un bloque leído del archivo comprimido y le quita la marca INTERCALADO.
+     * @param leido el byte leído, o -1 si el archivo se terminó.
+     * @return el tipo de bloque: NUEVA, ANTERIOR, PREDEFINIDA o CRUDO.
+     * @throws IOException si el archivo se terminó o el tipo no es válido (los bloques crudos no van intercalados).
+     */
+    static char tipo(int leido) throws IOException {
+        if (leido < 0) {
+            throw new IOException("El archivo comprimido está incompleto");
+        }
+        char tipo = (char) (leido & ~INTERCALADO);
+        if (tipo != NUEVA && tipo != ANTERIOR && tipo != PREDEFINIDA && leido != CRUDO) {
+            throw new IOException("Tipo de bloque desconocido: " + (char) leido);
+        }
+        return tipo;
+    }
+
+    /**
+     * Lee los bytes de un bloque guardado tal cual.
+     * @param entrada el archivo comprimido, en un límite de byte.
+     * @param datos donde se guardan los bytes.
+     * @param inicio la posición del primer byte en el arreglo.
+     * @param cantidad cuántos bytes leer.
+     * @throws IOException si el archivo se termina antes.
+     */
+    static void leerCrudo(BitInputStream entrada, byte[] datos, int inicio, int cantidad) throws IOException {
+        while (cantidad > 0) {
+            int n = entrada.read(datos, inicio, cantidad);
+            if (n < 0) {
+                throw new IOException("El archivo comprimido está incompleto");
+            }
+            inicio += n;
+            cantidad -= n;
+        }
+    }
+
+    // Arma una tabla solo para el bloque. Si el bloque tiene un solo caracter se usa el código vacío.
+    private Encabezado nuevaTabla(Histograma histograma) {
+        Encabezado encabezado = new Encabezado();
+        encabezado.tipoBloque = NUEVA;
+        encabezado.longitudMaxima = longitudMaxima;
+        encabezado.longitudes = ConstructorCodigos.longitudes(histograma, longitudMaxima);
+        if (histograma.simbolosDistintos() == 1) {
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                if (histograma.frecuencia(x) > 0) {
+                    encabezado.simboloUnico = x;
+                }
+            }
+        }
+        return encabezado;
+    }
+
+    // Calcula cuántos bytes ocupan los códigos de un bloque de 'total' bytes originales, porque cada bloque termina en
+    // un límite de byte. En sub-flujos se suman los números del tamaño de los segmentos y de cada flujo, y el relleno
+    // hasta el byte de cada flujo; como no se sabe cuánto ocupa cada uno se cuenta el peor caso, así que el bloque
+    // nunca termina ocupando más que lo calculado.
+    private static long bytes(long bits, long total, boolean intercalado) {
+        long bytes = (bits + 7) / 8;
+        if (!intercalado) {
+            return bytes;
+        }
+        int flujos = FlujosIntercalados.FLUJOS;
+        long segmento = (total + flujos - 1) / flujos;
+        return bytes + (flujos - 1) + Encabezado.tamanoNumero(segmento) + flujos * Encabezado.tamanoNumero(bytes);
+    }
+}
@@ -0,0 +1,229 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+
+/**
+ * Tabla de códigos entrenada de antemano con un conjunto de muestras y guardada en su propio archivo, para comprimir
+ * entradas pequeñas sin guardar la tabla en cada una. El archivo comprimido lleva solo el identificador de la tabla
+ * (el CRC32 de las longitudes), y al descomprimir se revisa que sea la misma. Todos los caracteres tienen código, aunque
+ * no aparezcan en las muestras, así que con la tabla se puede comprimir cualquier entrada.
+ *
+ * El archivo de la tabla tiene las letras "hut", la longitud máxima de los códigos (un byte) y la longitud del código
+ * de cada uno de los 256 caracteres (un byte cada una).
+ *
+ * Con la tabla se escribe el formato compartido: después del encabezado van trozos, cada uno con la cantidad de bytes
+ * originales (como los números del encabezado) y sus códigos, completando el último byte con ceros. Un trozo de
+ * tamaño 0 marca el final. En los formatos por bloques y de flujo, cada bloque también puede usar la tabla (ver
+ * SelectorTabla).
+ *
+ * La tabla se pasa a CompresorHuffman y a DescompresorHuffman; como ellos, solo se puede usar desde el paquete sin
+ * nombre.
+ */
+public class TablaCompartida {
+    static final String FIRMA = "hut";
+
+    private final int longitudMaxima;
+    private final int[] longitudes;
+    private final long id;
+    private final Codificador codificador;
+    private final TablaDecodificacion decodificador;
+
+    /**
+     * Constructor de la clase TablaCompartida. Los códigos y las tablas de decodificación se arman una sola vez acá.
+     * @param longitudMaxima la longitud máxima de los códigos.
+     * @param longitudes la longitud del código de cada caracter; todos tienen que tener código.
+     */
+    TablaCompartida(int longitudMaxima, int[] longitudes) {
+        this.longitudMaxima = longitudMaxima;
+        this.longitudes = longitudes;
+        CRC32 crc = new CRC32();
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            crc.update(longitudes[x]);
+        }
+        id = crc.getValue();
+        CodigoCanonico codigo = new CodigoCanonico(longitudes);
+        codificador = new Codificador(codigo);
+        decodificador = new TablaDecodificacion(codigo, -1);
+    }
+
+    /**
+     * Entrena una tabla con las frecuencias de las muestras. A cada caracter se le suma uno a su frecuencia, para que
+     * también los que no aparecen tengan código. La suma se hace en una copia, así que las muestras no cambian.
+     * @param muestras las frecuencias de los caracteres en las muestras.
+     * @param longitudMaxima la longitud máxima de los códigos.
+     * @return la tabla entrenada.
+     */
+    static TablaCompartida entrenar(Histograma muestras, int longitudMaxima) {
+        Histograma frecuencias = new Histograma();
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+            frecuencias.agregar(x, muestras.frecuencia(x) + 1);
+        }
+        return new TablaCompartida(longitudMaxima, ConstructorCodigos.longitudes(frecuencias, longitudMaxima));
+    }
+
+    /**
+     * Entrena una tabla con el contenido de unos archivos de muestra. Cada archivo se cuenta repartido entre los hilos.
+     * @param muestras los archivos de muestra.
+     * @param longitudMaxima la longitud máxima de los códigos, entre 8 y 32 bits.
+     * @return la tabla entrenada.
+     * @throws IOException si no se puede leer alguna de las muestras.
+     * @throws IllegalArgumentException si la longitud máxima no es válida.
+     */
+    public static TablaCompartida entrenar(File[] muestras, int longitudMaxima) throws IOException {
+        if (longitudMaxima < LongitudLimitada.LONGITUD_MINIMA || longitudMaxima > LongitudLimitada.LONGITUD_MAXIMA) {
+            throw new IllegalArgumentException("Longitud máxima inválida: " + longitudMaxima);
+        }
+        Histograma histograma = new Histograma();
+        for (File muestra : muestras) {
+            try (ArchivoMapeado archivo = new ArchivoMapeado(muestra)) {
+                for (int x = 0; x < archivo.cantidadVentanas(); x++) {
+                    histograma.agregar(archivo.ventana(x), ForkJoinPool.commonPool());
+                }
+            }
+        }
+        return entrenar(histograma, longitudMaxima);
+    }
+
+    /**
+     * Lee una tabla de un archivo.
+     * @param archivo el archivo de la tabla.
+     * @return la tabla leída.
+     * @throws IOException si no se puede leer el archivo o no es una tabla válida.
+     */
+    public static TablaCompartida leer(File archivo) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new FileInputStream(archivo))) {
+            for (int x = 0; x < FIRMA.length(); x++) {
+                if (entrada.readUnsignedByte() != FIRMA.charAt(x)) {
+                    throw new IOException(archivo + " no es una tabla de códigos");
+                }
+            }
+            int longitudMaxima = entrada.readUnsignedByte();
+            int[] longitudes = new int[CodigoCanonico.SIMBOLOS];
+            long kraft = 0;
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                longitudes[x] = entrada.readUnsignedByte();
+                if (longitudes[x] < 1 || longitudes[x] > longitudMaxima || longitudMaxima > LongitudLimitada.LONGITUD_MAXIMA) {
+                    throw new IOException("La tabla de códigos está dañada");
+                }
+                kraft += 1L << (LongitudLimitada.LONGITUD_MAXIMA - longitudes[x]);
+            }
+            if (kraft != 1L << LongitudLimitada.LONGITUD_MAXIMA) {
+                throw new IOException("La tabla de códigos está dañada");
+            }
+            return new TablaCompartida(longitudMaxima, longitudes);
+        } catch (EOFException exception) {
+            throw new IOException("La tabla de códigos está incompleta", exception);
+        }
+    }
+
+    /**
+     * Guarda la tabla en un archivo.
+     * @param archivo el archivo donde se guarda.
+     * @throws IOException si no se puede escribir.
+     */
+    public void escribir(File archivo) throws IOException {
+        try (DataOutputStream salida = new DataOutputStream(new FileOutputStream(archivo))) {
+            salida.writeBytes(FIRMA);
+            salida.writeByte(longitudMaxima);
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                salida.writeByte(longitudes[x]);
+            }
+        }
+    }
+
+    /**
+     * Devuelve el identificador de la tabla, que se guarda en el encabezado de los archivos comprimidos con ella.
+     * @return el CRC32 de las longitudes de los códigos.
+     */
+    public long id() {
+        return id;
+    }
+
+    /**
+     * Devuelve la longitud del código de cada caracter.
+     * @return el arreglo de longitudes; no se debe modificar.
+     */
+    int[] longitudes() {
+        return longitudes;
+    }
+
+    /**
+     * Devuelve el codificador de la tabla, para codificar bloques de otros formatos con ella.
+     * @return el codificador.
+     */
+    Codificador codificador() {
+        return codificador;
+    }
+
+    /**
+     * Devuelve las tablas de decodificación de la tabla.
+     * @return el decodificador.
+     */
+    TablaDecodificacion decodificador() {
+        return decodificador;
+    }
+
+    /**
+     * Escribe un trozo del formato compartido con los bytes que le quedan a un buffer. La posición del buffer no cambia.
+     * @param datos los datos originales.
+     * @param salida donde se escribe.
+     */
+    void escribirTrozo(ByteBuffer datos, BitOutputStream salida) {
+        Encabezado.escribirNumero(salida, datos.remaining());
+        codificador.codificar(datos, salida);
+        salida.flush();
+    }
+
+    /**
+     * Escribe el trozo vacío que marca el final del formato compartido.
+     * @param salida donde se escribe.
+     */
+    void escribirFin(BitOutputStream salida) {
+        Encabezado.escribirNumero(salida, 0);
+    }
+
+    /**
+     * Decodifica los trozos del formato compartido, escribiendo solo los bytes originales que están en [inicio, fin).
+     * @param entrada el archivo comprimido, posicionado después del encabezado.
+     * @param inicio la posición del primer byte que se quiere.
+     * @param fin la posición siguiente al último byte que se quiere.
+     * @param salida donde se escriben los bytes originales.
+     * @return la cantidad de bytes escritos.
+     * @throws IOException si el archivo está dañado o no se puede escribir la salida.
+     */
+    long decodificar(BitInputStream entrada, long inicio, long fin, OutputStream salida) throws IOException {
+        byte[] descarte = null;
+        long posicion = 0;
+        long escritos = 0;
+        long tamano = Encabezado.leerNumero(entrada);
+        while (tamano > 0 && posicion < fin) {
+            long saltar = Math.max(0, Math.min(tamano, inicio - posicion));
+            if (saltar > 0 && descarte == null) {
+                descarte = new byte[BitInputStream.BUFFER_SIZE];
+            }
+            for (long hechos = 0; hechos < saltar; ) {
+                int n = (int) Math.min(descarte.length, saltar - hechos);
+                decodificador.decodificar(entrada, descarte, 0, n);
+                hechos += n;
+            }
+            long cantidad = Math.min(tamano, fin - posicion) - saltar;
+            decodificador.decodificar(entrada, salida, cantidad);
+            escritos += cantidad;
+            if (saltar + cantidad < tamano) {
+                break;
+            }
+            entrada.alignToByte();
+            posicion += tamano;
+            tamano = Encabezado.leerNumero(entrada);
+        }
+        return escritos;
+    }
+}
@@ -0,0 +1,407 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Motor de decodificación basado en tablas. En lugar de recorrer el árbol de Huffman bit por bit, se construye una
+ * tabla primaria indexada por los siguientes BITS_PRIMARIOS bits del archivo y, para los códigos más largos, sub-tablas
+ * enlazadas desde la primaria. Cada consulta resuelve un símbolo completo a partir de una ventana de bits.
+ *
+ * Si los códigos más cortos caben de a dos en BITS_MULTIPLES bits, se arma además una tabla de varios símbolos:
+ * cada entrada, indexada por los siguientes BITS_MULTIPLES bits, guarda todos los símbolos completos que caben en
+ * ellos (hasta SIMBOLOS_POR_ENTRADA), cuántos son y cuántos bits ocupan. En datos muy sesgados, como los registros de
+ * texto, una sola consulta entrega varios bytes.
+ *
+ * Como BitOutputStream escribe el primer bit de cada byte en la posición menos significativa, los códigos se guardan
+ * invertidos: el primer bit del código queda en el bit 0 del índice.
+ */
+class TablaDecodificacion {
+    static final int BITS_PRIMARIOS = 10;
+    static final int BITS_SECUNDARIOS = 8;
+    static final int BITS_MULTIPLES = 11;
+    static final int SIMBOLOS_POR_ENTRADA = 3;
+
+    // Una entrada con este bit encendido es un enlace a una sub-tabla: (inicio << 5) | bits de la sub-tabla.
+    // En caso contrario es una hoja: (longitud del código << 8) | símbolo. Una entrada en 0 no corresponde a ningún código.
+    private static final int ENLACE = 1 << 30;
+
+    // Una entrada de la tabla de varios símbolos es (bits consumidos << 26) | (cantidad de símbolos << 24) | símbolos,
+    // con el primer símbolo en el byte más bajo. Una entrada en 0 indica que el código no cabe en BITS_MULTIPLES bits.
+    private static final int MASCARA_MULTIPLES = (1 << BITS_MULTIPLES) - 1;
+
+    private final int[] multiples; // null si los códigos son demasiado largos para que valga la pena
+
+    private int[] entradas;
+    private int tamano;
+    private final long[] invertidos;
+    private final int[] longitudes;
+    private final int[] simbolos;
+    private final int simboloUnico;
+    private final int longitudMaxima;
+
+    /**
+     * Construye las tablas de decodificación a partir del código canónico reconstruido del archivo comprimido. Los
+     * códigos se toman en orden canónico (por longitud y luego por símbolo) y se invierten para leerlos en el orden en
+     * que BitInputStream entrega los bits.
+     * @param codigo el código canónico de las longitudes guardadas en el encabezado.
+     * @param unico el único caracter del archivo, que tiene el código vacío, o -1 si hay más de uno.
+     */
+    TablaDecodificacion(CodigoCanonico codigo, int unico) {
+        int cantidad = unico == -1 ? 0 : 1;
+        int maximo = 0;
+        for (int x = 0; x < CodigoCanonico.SIMBOLOS && unico == -1; x++) {
+            if (codigo.longitud(x) > 0) {
+                cantidad++;
+                maximo = Math.max(maximo, codigo.longitud(x));
+            }
+        }
+        invertidos = new long[cantidad];
+        longitudes = new int[cantidad];
+        simbolos = new int[cantidad];
+        int[] indices = new int[cantidad];
+        if (unico != -1) {
+            simbolos[0] = unico;
+        }
+        int n = 0;
+        for (int l = 1; l <= maximo; l++) {
+            for (int x = 0; x < CodigoCanonico.SIMBOLOS; x++) {
+                if (codigo.longitud(x) == l) {
+                    invertidos[n] = Long.reverse(codigo.codigo(x)) >>> (Long.SIZE - l);
+                    longitudes[n] = l;
+                    simbolos[n] = x;
+                    indices[n] = n;
+                    n++;
+                }
+            }
+        }
+        simboloUnico = unico;
+        longitudMaxima = Math.max(maximo, BITS_MULTIPLES);
+        entradas = new int[1 << BITS_PRIMARIOS];
+        tamano = 0;
+        if (unico == -1) {
+            construir(indices, cantidad, 0, BITS_PRIMARIOS);
+        }
+        int minimo = maximo;
+        for (int y = 0; y < cantidad; y++) {
+            minimo = Math.min(minimo, longitudes[y]);
+        }
+        multiples = unico == -1 && cantidad > 0 && 2 * minimo <= BITS_MULTIPLES ? construirMultiples() : null;
+    }
+
+    /**
+     * Construye la tabla de varios símbolos: para cada valor de los siguientes BITS_MULTIPLES bits se resuelven códigos
+     * uno tras otro mientras quepan completos.
+     * @return la tabla.
+     */
+    private int[] construirMultiples() {
+        int[] tabla = new int[1 << BITS_MULTIPLES];
+        for (int ventana = 0; ventana < tabla.length; ventana++) {
+            int usados = 0;
+            int cantidad = 0;
+            int simbolos = 0;
+            while (cantidad < SIMBOLOS_POR_ENTRADA) {
+                int e = hoja(ventana >>> usados);
+                if (e == 0 || usados + (e >>> 8) > BITS_MULTIPLES) {
+                    break;
+                }
+                simbolos |= (e & 0xFF) << (8 * cantidad);
+                usados += e >>> 8;
+                cantidad++;
+            }
+            tabla[ventana] = cantidad == 0 ? 0 : (usados << 26) | (cantidad << 24) | simbolos;
+        }
+        return tabla;
+    }
+
+    /**
+     * Construye una tabla (primaria o sub-tabla) para los códigos indicados, que comparten sus primeros
+     * 'desplazamiento' bits. Los códigos que no caben en la tabla se agrupan por posición y se les crea una sub-tabla.
+     * @param indices los índices de los códigos que le corresponden a esta tabla.
+     * @param cantidad cuántos índices del arreglo son válidos.
+     * @param desplazamiento cuántos bits de cada código ya fueron resueltos por las tablas anteriores.
+     * @param bits cantidad de bits que indexan esta tabla.
+     * @return la posición de inicio de la tabla dentro del arreglo de entradas.
+     */
+    private int construir(int[] indices, int cantidad, int desplazamiento, int bits) {
+        int inicio = reservar(1 << bits);
+        int mascara = (1 << bits) - 1;
+        boolean[] procesado = new boolean[cantidad];
+        for (int x = 0; x < cantidad; x++) {
+            int i = indices[x];
+            int restante = longitudes[i] - desplazamiento;
+            int posicion = (int) (invertidos[i] >>> desplazamiento) & mascara;
+            if (restante <= bits) {
+                int hoja = (longitudes[i] << 8) | simbolos[i];
+                for (int k = posicion; k <= mascara; k += 1 << restante) {
+                    entradas[inicio + k] = hoja;
+                }
+            } else if (!procesado[x]) {
+                // Agrupa todos los códigos largos que caen en la misma posición de esta tabla.
+                int[] grupo = new int[cantidad];
+                int enGrupo = 0;
+                int maximo = 0;
+                for (int y = x; y < cantidad; y++) {
+                    int j = indices[y];
+                    if (longitudes[j] - desplazamiento > bits && ((int) (invertidos[j] >>> desplazamiento) & mascara) == posicion) {
+                        procesado[y] = true;
+                        grupo[enGrupo++] = j;
+                        maximo = Math.max(maximo, longitudes[j] - desplazamiento - bits);
+                    }
+                }
+                int bitsSub = Math.min(maximo, BITS_SECUNDARIOS);
+                int sub = construir(grupo, enGrupo, desplazamiento + bits, bitsSub);
+                entradas[inicio + posicion] = ENLACE | (sub << 5) | bitsSub;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Reserva espacio para una nueva tabla al final del arreglo de entradas, agrandándolo si hace falta.
+     * @param cantidad la cantidad de entradas de la nueva tabla.
+     * @return la posición de inicio de la nueva tabla.
+     */
+    private int reservar(int cantidad) {
+        if (tamano + cantidad > entradas.length) {
+            int[] nuevas = new int[Math.max(entradas.length * 2, tamano + cantidad)];
+            System.arraycopy(entradas, 0, nuevas, 0, tamano);
+            entradas = nuevas;
+        }
+        int inicio = tamano;
+        tamano += cantidad;
+        return inicio;
+    }
+
+    /**
+     * Decodifica 'cantidad' símbolos del archivo comprimido y los escribe en la salida. La entrada tiene que estar
+     * posicionada justo después del encabezado (o al inicio de un bloque).
+     * @param entrada el archivo comprimido.
+     * @param salida donde se escriben los bytes decodificados.
+     * @param cantidad cantidad de símbolos a decodificar (el tamaño del archivo original).
+     * @throws IOException si el archivo se termina antes de tiempo, tiene un código inválido o no se puede escribir.
+     */
+    void decodificar(BitInputStream entrada, OutputStream salida, long cantidad) throws IOException {
+        byte[] bloque = new byte[(int) Math.min(Histograma.TAMANO_BLOQUE, Math.max(cantidad, 1))];
+        for (long hechos = 0; hechos < cantidad; ) {
+            int n = (int) Math.min(bloque.length, cantidad - hechos);
+            decodificar(entrada, bloque, 0, n);
+            salida.write(bloque, 0, n);
+            hechos += n;
+        }
+    }
+
+    /**
+     * Decodifica 'cantidad' símbolos y los guarda en un arreglo. En cada paso se miran los siguientes bits con
+     * peekBits, se resuelve el símbolo (o los símbolos, con la tabla de varios símbolos) y se consumen solo los bits de
+     * sus códigos. Con la tabla de varios símbolos se escriben siempre SIMBOLOS_POR_ENTRADA bytes y se avanza solo los
+     * que traía la entrada; los que sobran se sobrescriben en la vuelta siguiente.
+     * Las tablas no se modifican al decodificar, así que varios hilos pueden usar la misma instancia a la vez.
+     * @param entrada el archivo comprimido.
+     * @param destino el arreglo donde se guardan los bytes decodificados.
+     * @param inicio la posición del arreglo donde va el primer byte.
+     * @param cantidad cantidad de símbolos a decodificar.
+     * @throws IOException si el archivo se termina antes de tiempo o tiene un código inválido.
+     */
+    void decodificar(BitInputStream entrada, byte[] destino, int inicio, int cantidad) throws IOException {
+        int fin = inicio + cantidad;
+        if (simboloUnico != -1) {
+            for (int x = inicio; x < fin; x++) {
+                destino[x] = (byte) simboloUnico;
+            }
+            return;
+        }
+        try {
+            int x = inicio;
+            if (multiples != null) {
+                for (int limite = fin - SIMBOLOS_POR_ENTRADA; x <= limite; ) {
+                    long ventana = entrada.peekBits(longitudMaxima);
+                    int m = multiples[(int) ventana & MASCARA_MULTIPLES];
+                    if (m == 0) {
+                        m = unSimbolo(ventana);
+                    }
+                    x = escribir(m, destino, x);
+                    entrada.consumeBits(m >>> 26);
+                }
+            }
+            for (; x < fin; x++) {
+                int e = buscar(entrada.peekBits(longitudMaxima));
+                destino[x] = (byte) e;
+                entrada.consumeBits(e >>> 8);
+            }
+        } catch (BitOutputStream.BitIOException exception) {
+            throw new IOException("El archivo comprimido está dañado o incompleto", exception);
+        }
+    }
+
+    /**
+     * Decodifica los sub-flujos de un bloque (ver FlujosIntercalados). En cada vuelta se resuelve un símbolo de cada uno
+     * de los cuatro flujos (o varios, con la tabla de varios símbolos); como los cursores no dependen entre sí, el
+     * procesador puede hacer las cuatro búsquedas en las tablas a la vez en lugar de esperar a que termine cada una.
+     * Cada cursor es solo una posición en bits dentro del arreglo: se leen 8 bytes desde esa posición, sin ir llenando
+     * un buffer de bits.
+     * @param comprimido los flujos uno tras otro, seguidos de al menos 8 bytes de relleno.
+     * @param limites dónde empieza cada flujo en el arreglo, y en la última posición dónde termina el último flujo.
+     * @param destino donde se guardan los bytes decodificados, desde la posición 0.
+     * @param segmento cuántos bytes originales tiene cada flujo (el último puede tener menos).
+     * @param cantidad cuántos bytes decodificar desde el principio del bloque.
+     * @throws IOException si algún flujo tiene un código inválido o se termina antes de tiempo.
+     */
+    void decodificar(byte[] comprimido, int[] limites, byte[] destino, int segmento, int cantidad) throws IOException {
+        if (simboloUnico != -1) {
+            for (int x = 0; x < cantidad; x++) {
+                destino[x] = (byte) simboloUnico;
+            }
+            return;
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(comprimido).order(ByteOrder.LITTLE_ENDIAN);
+        int[] inicios = new int[FlujosIntercalados.FLUJOS + 1];
+        for (int k = 0; k <= FlujosIntercalados.FLUJOS; k++) {
+            inicios[k] = (int) Math.min((long) k * segmento, cantidad);
+        }
+        long p0 = (long) limites[0] * 8;
+        long p1 = (long) limites[1] * 8;
+        long p2 = (long) limites[2] * 8;
+        long p3 = (long) limites[3] * 8;
+        int x0 = inicios[0];
+        int x1 = inicios[1];
+        int x2 = inicios[2];
+        int x3 = inicios[3];
+        try {
+            if (multiples != null) {
+                // Cada flujo avanza según cuántos símbolos trajo su entrada, hasta que alguno se acerca a su final.
+                int l0 = inicios[1] - SIMBOLOS_POR_ENTRADA;
+                int l1 = inicios[2] - SIMBOLOS_POR_ENTRADA;
+                int l2 = inicios[3] - SIMBOLOS_POR_ENTRADA;
+                int l3 = inicios[4] - SIMBOLOS_POR_ENTRADA;
+                while (x0 <= l0 && x1 <= l1 && x2 <= l2 && x3 <= l3) {
+                    long v0 = bytes.getLong((int) (p0 >>> 3)) >>> (p0 & 7);
+                    long v1 = bytes.getLong((int) (p1 >>> 3)) >>> (p1 & 7);
+                    long v2 = bytes.getLong((int) (p2 >>> 3)) >>> (p2 & 7);
+                    long v3 = bytes.getLong((int) (p3 >>> 3)) >>> (p3 & 7);
+                    int m0 = multiples[(int) v0 & MASCARA_MULTIPLES];
+                    int m1 = multiples[(int) v1 & MASCARA_MULTIPLES];
+                    int m2 = multiples[(int) v2 & MASCARA_MULTIPLES];
+                    int m3 = multiples[(int) v3 & MASCARA_MULTIPLES];
+                    if ((m0 == 0) | (m1 == 0) | (m2 == 0) | (m3 == 0)) {
+                        m0 = m0 == 0 ? unSimbolo(v0) : m0;
+                        m1 = m1 == 0 ? unSimbolo(v1) : m1;
+                        m2 = m2 == 0 ? unSimbolo(v2) : m2;
+                        m3 = m3 == 0 ? unSimbolo(v3) : m3;
+                    }
+                    x0 = escribir(m0, destino, x0);
+                    x1 = escribir(m1, destino, x1);
+                    x2 = escribir(m2, destino, x2);
+                    x3 = escribir(m3, destino, x3);
+                    p0 += m0 >>> 26;
+                    p1 += m1 >>> 26;
+                    p2 += m2 >>> 26;
+                    p3 += m3 >>> 26;
+                }
+            } else {
+                for (int fin3 = inicios[4]; x3 < fin3; x0++, x1++, x2++, x3++) { // el último flujo es el más corto
+                    int e0 = buscar(bytes.getLong((int) (p0 >>> 3)) >>> (p0 & 7));
+                    int e1 = buscar(bytes.getLong((int) (p1 >>> 3)) >>> (p1 & 7));
+                    int e2 = buscar(bytes.getLong((int) (p2 >>> 3)) >>> (p2 & 7));
+                    int e3 = buscar(bytes.getLong((int) (p3 >>> 3)) >>> (p3 & 7));
+                    destino[x0] = (byte) e0;
+                    destino[x1] = (byte) e1;
+                    destino[x2] = (byte) e2;
+                    destino[x3] = (byte) e3;
+                    p0 += e0 >>> 8;
+                    p1 += e1 >>> 8;
+                    p2 += e2 >>> 8;
+                    p3 += e3 >>> 8;
+                }
+            }
+            long[] posiciones = {p0, p1, p2, p3};
+            int[] actuales = {x0, x1, x2, x3};
+            for (int k = 0; k < FlujosIntercalados.FLUJOS; k++) {
+                long posicion = decodificarFlujo(bytes, posiciones[k], destino, actuales[k], inicios[k + 1]);
+                if (posicion > (long) limites[k + 1] * 8) {
+                    throw new IOException("El archivo comprimido está dañado: un flujo se pasa de su tamaño");
+                }
+            }
+        } catch (IndexOutOfBoundsException exception) {
+            throw new IOException("El archivo comprimido está dañado o incompleto", exception);
+        }
+    }
+
+    // Decodifica con un solo cursor los símbolos [desde, hasta) de un flujo. Devuelve la posición en bits del final.
+    private long decodificarFlujo(ByteBuffer bytes, long posicion, byte[] destino, int desde, int hasta) throws IOException {
+        int x = desde;
+        if (multiples != null) {
+            for (int limite = hasta - SIMBOLOS_POR_ENTRADA; x <= limite; ) {
+                long ventana = bytes.getLong((int) (posicion >>> 3)) >>> (posicion & 7);
+                int m = multiples[(int) ventana & MASCARA_MULTIPLES];
+                if (m == 0) {
+                    m = unSimbolo(ventana);
+                }
+                x = escribir(m, destino, x);
+                posicion += m >>> 26;
+            }
+        }
+        for (; x < hasta; x++) {
+            int e = buscar(bytes.getLong((int) (posicion >>> 3)) >>> (posicion & 7));
+            destino[x] = (byte) e;
+            posicion += e >>> 8;
+        }
+        return posicion;
+    }
+
+    // Escribe los SIMBOLOS_POR_ENTRADA bytes de una entrada de la tabla de varios símbolos y devuelve la posición
+    // siguiente al último símbolo que traía; los bytes de más se sobrescriben después.
+    private static int escribir(int m, byte[] destino, int x) {
+        destino[x] = (byte) m;
+        destino[x + 1] = (byte) (m >>> 8);
+        destino[x + 2] = (byte) (m >>> 16);
+        return x + ((m >>> 24) & 3);
+    }
+
+    /**
+     * Decodifica un solo símbolo, para cuando cada símbolo puede usar una tabla distinta (ver ModeloContexto).
+     * @param entrada el archivo comprimido.
+     * @return el byte decodificado (0 a 255).
+     * @throws IOException si el archivo se termina antes de tiempo o tiene un código inválido.
+     */
+    int decodificar(BitInputStream entrada) throws IOException {
+        if (simboloUnico != -1) {
+            return simboloUnico;
+        }
+        try {
+            int e = buscar(entrada.peekBits(longitudMaxima));
+            entrada.consumeBits(e >>> 8);
+            return e & 0xFF;
+        } catch (BitOutputStream.BitIOException exception) {
+            throw new IOException("El archivo comprimido está dañado o incompleto", exception);
+        }
+    }
+
+    // Busca en las tablas la hoja del código que empieza en la ventana de bits: (longitud del código << 8) | símbolo.
+    private int buscar(long ventana) throws IOException {
+        int e = hoja(ventana);
+        if (e == 0) {
+            throw new IOException("El archivo comprimido está dañado");
+        }
+        return e;
+    }
+
+    // Como buscar, pero en el formato de la tabla de varios símbolos, con un solo símbolo.
+    private int unSimbolo(long ventana) throws IOException {
+        int e = buscar(ventana);
+        return ((e >>> 8) << 26) | (1 << 24) | (e & 0xFF);
+    }
+
+    // Recorre la primaria y las sub-tablas; devuelve 0 si la ventana no empieza con ningún código.
+    private int hoja(long ventana) {
+        int e = entradas[(int) ventana & ((1 << BITS_PRIMARIOS) - 1)];
+        int desplazamiento = BITS_PRIMARIOS;
+        while ((e & ENLACE) != 0) {
+            int bitsSub = e & 31;
+            int sub = (e & ~ENLACE) >>> 5;
+            e = entradas[sub + ((int) (ventana >>> desplazamiento) & ((1 << bitsSub) - 1))];
+            desplazamiento += bitsSub;
+        }
+        return e;
+    }
+}
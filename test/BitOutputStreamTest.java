@@ -0,0 +1,51 @@
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Prueba de BitOutputStream que mezcla writeBits y writeBit: writeBits puede dejar hasta 31 bits en el acumulador, y
+ * writeBit tiene que seguir vaciándolo de a bytes. Se compara con los mismos bits escritos uno por uno.
+ *
+ *   javac -d /tmp/prueba src/*.java test/BitOutputStreamTest.java
+ *   java -cp /tmp/prueba BitOutputStreamTest
+ */
+class BitOutputStreamTest {
+
+    public static void main(String[] args) {
+        writeBitsYWriteBit(0xFFFFF, 20, 60);
+        for (int nbits = 0; nbits <= 32; nbits++) {
+            for (int sueltos = 0; sueltos <= 70; sueltos++) {
+                writeBitsYWriteBit(0x9E3779B97F4A7C15L, nbits, sueltos);
+            }
+        }
+        System.out.println("BitOutputStreamTest: ok");
+    }
+
+    // Escribe nbits bits de 'bits' con writeBits, después 'sueltos' bits alternados con writeBit, y otra vez nbits
+    // con writeBits; el resultado tiene que ser igual a escribir todos los bits con writeBit.
+    private static void writeBitsYWriteBit(long bits, int nbits, int sueltos) {
+        ByteArrayOutputStream mezclado = new ByteArrayOutputStream();
+        BitOutputStream salida = new BitOutputStream(mezclado);
+        salida.writeBits(bits, nbits);
+        for (int x = 0; x < sueltos; x++) {
+            salida.writeBit(x & 1);
+        }
+        salida.writeBits(bits, nbits);
+        salida.close();
+
+        ByteArrayOutputStream esperado = new ByteArrayOutputStream();
+        BitOutputStream referencia = new BitOutputStream(esperado);
+        for (int x = 0; x < nbits; x++) {
+            referencia.writeBit((int) (bits >>> x) & 1);
+        }
+        for (int x = 0; x < sueltos; x++) {
+            referencia.writeBit(x & 1);
+        }
+        for (int x = 0; x < nbits; x++) {
+            referencia.writeBit((int) (bits >>> x) & 1);
+        }
+        referencia.close();
+
+        if (!java.util.Arrays.equals(mezclado.toByteArray(), esperado.toByteArray())) {
+            throw new AssertionError("writeBits(" + nbits + ") + " + sueltos + " x writeBit no coincide");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Prueba de Lote: un lote con un .huf dañado tiene que informar el error sin dejar ninguna salida para ese archivo, y
+ * los demás archivos se tienen que procesar igual. Tampoco se puede sobrescribir un archivo que ya existe.
+ *
+ *   javac -d /tmp/prueba src/*.java test/LoteTest.java
+ *   java -cp /tmp/prueba LoteTest
+ */
+class LoteTest {
+
+    public static void main(String[] args) throws IOException {
+        File carpeta = Files.createTempDirectory("lote").toFile();
+        try {
+            archivoDaniado(carpeta);
+            destinoExistente(carpeta);
+        } finally {
+            for (File archivo : carpeta.listFiles()) {
+                archivo.delete();
+            }
+            carpeta.delete();
+        }
+        System.out.println("LoteTest: ok");
+    }
+
+    // Descomprime un .huf bueno y uno dañado: el bueno se descomprime y el dañado no deja nada.
+    private static void archivoDaniado(File carpeta) throws IOException {
+        StringBuilder texto = new StringBuilder();
+        for (int x = 0; x < 200; x++) {
+            texto.append("abracadabra, pata de cabra ").append(x).append('\n');
+        }
+        byte[] contenido = texto.toString().getBytes("UTF-8");
+        File original = new File(carpeta, "bueno.txt");
+        Files.write(original.toPath(), contenido);
+        verificar(procesar(true, original) == 0, "no se pudo comprimir " + original);
+        Files.delete(original.toPath());
+
+        File daniado = new File(carpeta, "malo.txt.huf");
+        byte[] comprimido = Files.readAllBytes(new File(carpeta, "bueno.txt.huf").toPath());
+        Files.write(daniado.toPath(), Arrays.copyOf(comprimido, comprimido.length / 2));
+
+        verificar(procesar(false, new File(carpeta, "bueno.txt.huf"), daniado) == 1, "tenía que fallar un archivo");
+        verificar(Arrays.equals(Files.readAllBytes(original.toPath()), contenido), "bueno.txt no coincide");
+        verificar(!new File(carpeta, "malo.txt").exists(), "quedó la salida del archivo dañado");
+        verificar(!new File(carpeta, "malo.txt.tmp").exists(), "quedó el temporal del archivo dañado");
+    }
+
+    // Un archivo que ya existe no se toca, ni se borra al fallar.
+    private static void destinoExistente(File carpeta) throws IOException {
+        File original = new File(carpeta, "otro.txt");
+        Files.write(original.toPath(), new byte[] {1, 2, 3});
+        File existente = new File(carpeta, "otro.txt.huf");
+        Files.write(existente.toPath(), new byte[] {9});
+        verificar(procesar(true, original) == 1, "tenía que fallar por el destino existente");
+        verificar(Arrays.equals(Files.readAllBytes(existente.toPath()), new byte[] {9}), "se sobrescribió otro.txt.huf");
+    }
+
+    // Procesa los archivos en un lote y devuelve la cantidad de errores.
+    private static int procesar(boolean comprimir, File... archivos) throws IOException {
+        Lista<File> lista = new Lista<>();
+        for (File archivo : archivos) {
+            lista.agregar(archivo);
+        }
+        Lote lote = new Lote(new CompresorHuffman(), new DescompresorHuffman(), 2);
+        return lote.procesar(lista, comprimir, new PrintStream(new ByteArrayOutputStream()));
+    }
+
+    private static void verificar(boolean condicion, String mensaje) {
+        if (!condicion) {
+            throw new AssertionError(mensaje);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prueba de SelectorTabla con sub-flujos (-i): en bloques muy pequeños los tamaños de los flujos y el relleno de cada
+ * uno pesan más que lo que ahorran los códigos, así que un bloque codificado nunca puede ocupar más que guardarlo tal
+ * cual (el byte de tipo más los bytes originales).
+ *
+ *   javac -d /tmp/prueba src/*.java test/SelectorTablaTest.java
+ *   java -cp /tmp/prueba SelectorTablaTest
+ */
+class SelectorTablaTest {
+
+    public static void main(String[] args) throws IOException {
+        Random azar = new Random(1);
+        File archivo = File.createTempFile("bloque", ".bin");
+        try {
+            for (int longitud = 1; longitud <= 64; longitud++) {
+                for (int distintos = 1; distintos <= 8; distintos++) {
+                    for (int prueba = 0; prueba < 20; prueba++) {
+                        byte[] datos = new byte[longitud];
+                        for (int x = 0; x < longitud; x++) {
+                            datos[x] = (byte) (azar.nextInt(distintos) * 37);
+                        }
+                        Files.write(archivo.toPath(), datos);
+                        noCrece(archivo, longitud);
+                    }
+                }
+            }
+        } finally {
+            archivo.delete();
+        }
+        System.out.println("SelectorTablaTest: ok");
+    }
+
+    // Codifica el archivo como un solo bloque con sub-flujos y revisa que no ocupe más que el bloque crudo.
+    private static void noCrece(File archivo, int longitud) throws IOException {
+        try (ArchivoMapeado mapeado = new ArchivoMapeado(archivo)) {
+            byte[] bloque = new CompresorBloques(general(), null, true, ForkJoinPool.commonPool())
+                    .codificarBloque(mapeado, 0, longitud);
+            if (bloque.length > 1 + longitud) {
+                throw new AssertionError("Un bloque de " + longitud + " bytes tipo " + (char) bloque[0] + " ocupa "
+                        + bloque.length + " bytes, más que guardado tal cual");
+            }
+        }
+    }
+
+    // Encabezado general con códigos de 8 bits para todos los caracteres, que nunca achica un bloque.
+    private static Encabezado general() {
+        Encabezado general = new Encabezado();
+        general.longitudMaxima = LongitudLimitada.LONGITUD_MAXIMA;
+        general.longitudes = new int[CodigoCanonico.SIMBOLOS];
+        Arrays.fill(general.longitudes, 8);
+        return general;
+    }
+}